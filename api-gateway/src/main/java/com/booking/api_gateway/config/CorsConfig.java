@@ -36,7 +36,8 @@ public class CorsConfig {
                 "X-Auth-Token",
                 "X-User-Id",
                 "X-User-Name",
-                "X-User-Roles"
+                "X-User-Roles",
+                "Idempotency-Key"
         ));
 
         // Allow all HTTP methods
@@ -1,12 +1,15 @@
 package com.booking.booking_service;
 
+import com.booking.common_library.config.IdGeneratorConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@Import(IdGeneratorConfig.class)
 @EnableAsync
 public class BookingServiceApplication {
 
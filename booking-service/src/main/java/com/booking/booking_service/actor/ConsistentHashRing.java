@@ -0,0 +1,62 @@
+package com.booking.booking_service.actor;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing (có virtual node) trên danh sách instance: khi thêm / bớt instance,
+ * chỉ khoảng 1/N số flight đổi chủ.
+ */
+final class ConsistentHashRing {
+
+    static final ConsistentHashRing EMPTY = new ConsistentHashRing(new TreeMap<>());
+
+    private final TreeMap<Long, ServiceInstance> ring;
+
+    private ConsistentHashRing(TreeMap<Long, ServiceInstance> ring) {
+        this.ring = ring;
+    }
+
+    static ConsistentHashRing of(Collection<ServiceInstance> instances, int virtualNodes) {
+        TreeMap<Long, ServiceInstance> ring = new TreeMap<>();
+        for (ServiceInstance instance : instances) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(instance.getInstanceId() + "#" + i), instance);
+            }
+        }
+        return new ConsistentHashRing(ring);
+    }
+
+    ServiceInstance ownerOf(String flightId) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, ServiceInstance> entry = ring.ceilingEntry(hash(flightId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * FNV-1a 64-bit, trộn thêm (murmur3 fmix64) để phân bố đều trên ring.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
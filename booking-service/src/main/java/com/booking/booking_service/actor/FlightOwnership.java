@@ -0,0 +1,92 @@
+package com.booking.booking_service.actor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Xác định instance sở hữu từng flight bằng consistent hashing trên danh sách instance booking-service trong Eureka.
+ * Chưa có danh sách instance (Eureka chưa sẵn sàng, chạy local) thì instance hiện tại sở hữu mọi flight.
+ */
+@Slf4j
+@Component
+public class FlightOwnership {
+
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+
+    @Value("${spring.application.name}")
+    private String serviceId;
+
+    @Value("${app.booking.seat-actor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.booking.seat-actor.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private volatile ConsistentHashRing ring = ConsistentHashRing.EMPTY;
+    private volatile List<String> memberIds = List.of();
+    private volatile List<ServiceInstance> members = List.of();
+
+    public FlightOwnership(DiscoveryClient discoveryClient, ObjectProvider<Registration> registration) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+    }
+
+    /**
+     * Instance sở hữu flight, null nếu là instance hiện tại.
+     */
+    public ServiceInstance remoteOwnerOf(String flightId) {
+        ServiceInstance owner = ring.ownerOf(flightId);
+        return owner == null || isSelf(owner) ? null : owner;
+    }
+
+    public boolean isLocal(String flightId) {
+        return remoteOwnerOf(flightId) == null;
+    }
+
+    /**
+     * Các instance khác trong ring (dùng cho lệnh không gắn với một flight).
+     */
+    public List<ServiceInstance> remoteMembers() {
+        return members.stream().filter(instance -> !isSelf(instance)).toList();
+    }
+
+    /**
+     * Cập nhật ring theo danh sách instance trong registry (cache local của Eureka client, không gọi mạng).
+     */
+    @Scheduled(fixedDelayString = "${app.booking.seat-actor.ring-refresh-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<ServiceInstance> instances = discoveryClient.getInstances(serviceId).stream()
+                    .sorted(Comparator.comparing(ServiceInstance::getInstanceId))
+                    .toList();
+            List<String> ids = instances.stream().map(ServiceInstance::getInstanceId).toList();
+            if (!ids.equals(memberIds)) {
+                ring = ConsistentHashRing.of(instances, virtualNodes);
+                members = instances;
+                memberIds = ids;
+                log.info("Seat actor ring updated: {}", ids);
+            }
+        } catch (Exception e) {
+            log.warn("Cannot refresh seat actor ring: {}", e.getMessage());
+        }
+    }
+
+    private boolean isSelf(ServiceInstance instance) {
+        Registration self = registration.getIfAvailable();
+        return self == null || Objects.equals(self.getInstanceId(), instance.getInstanceId());
+    }
+}
@@ -0,0 +1,259 @@
+package com.booking.booking_service.actor;
+
+import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.repository.SeatLockRepository;
+import com.booking.booking_service.service.SeatInventoryService;
+import com.booking.booking_service.utils.LockStatus;
+import com.booking.common_library.exception.BusinessException;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State ghế (các lock ACTIVE) của một flight trên instance sở hữu flight đó.
+ * <p>
+ * Mọi lệnh đi qua mailbox và được xử lý lần lượt từng lệnh một, nên state không cần khóa; thay đổi được ghi
+ * xuống MongoDB bất đồng bộ qua {@link SeatLockJournal}. State được nạp lại từ MongoDB ở lệnh đầu tiên,
+ * kể cả khi flight vừa chuyển từ instance khác sang.
+ */
+final class FlightSeatActor {
+
+    static final String NOT_OWNER = "NOT_OWNER";
+
+    // Số lệnh tối đa mỗi lượt chạy, để actor bận không giữ luồng quá lâu
+    private static final int THROUGHPUT = 64;
+
+    private final String flightId;
+    private final Executor executor;
+    private final SeatLockRepository seatLockRepository;
+    private final SeatLockJournal journal;
+    private final SeatInventoryService seatInventoryService;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Chỉ truy cập bên trong mailbox
+    private Map<String, SeatLock> activeLocks;
+    private boolean retired;
+
+    FlightSeatActor(String flightId, Executor executor, SeatLockRepository seatLockRepository,
+                    SeatLockJournal journal, SeatInventoryService seatInventoryService) {
+        this.flightId = flightId;
+        this.executor = executor;
+        this.seatLockRepository = seatLockRepository;
+        this.journal = journal;
+        this.seatInventoryService = seatInventoryService;
+    }
+
+    CompletableFuture<List<SeatLock>> ask(SeatCommand command) {
+        CompletableFuture<List<SeatLock>> result = new CompletableFuture<>();
+        mailbox.add(() -> {
+            try {
+                result.complete(handle(command));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    /**
+     * Ngừng nhận lệnh (flight đã chuyển sang instance khác); các lệnh đến sau bị từ chối với NOT_OWNER.
+     */
+    CompletableFuture<Void> retire() {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.add(() -> {
+            retired = true;
+            activeLocks = null;
+            result.complete(null);
+        });
+        schedule();
+        return result;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        for (int processed = 0; processed < THROUGHPUT && (task = mailbox.poll()) != null; processed++) {
+            task.run();
+        }
+        scheduled.set(false);
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private List<SeatLock> handle(SeatCommand command) {
+        if (retired) {
+            throw new BusinessException("Flight " + flightId + " is not owned by this instance", NOT_OWNER);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        loadIfNeeded();
+        expireDue(now);
+
+        return switch (command.getType()) {
+            case LOCK -> lock(command.getSeatNumbers(), command.getUserId(), command.getSessionId(),
+                    now, now.plusMinutes(command.getMinutes()));
+            case RELEASE -> release(command.getSeatNumbers(), command.getUserId());
+            case RELEASE_SESSION -> finish(activeLocks.values().stream()
+                    .filter(lock -> Objects.equals(lock.getSessionId(), command.getSessionId()))
+                    .toList(), LockStatus.RELEASED);
+            case CONFIRM -> confirm(command.getSeatNumbers(), command.getUserId(), command.getBookingId());
+            case RELEASE_BOOKING -> {
+                // Lock CONFIRMED không nằm trong state: chỉ ghi journal, sau thay đổi CONFIRM của cùng booking
+                List<String> seats = List.copyOf(command.getSeatNumbers());
+                journal.bookingReleased(command.getBookingId(), () -> seatInventoryService.markReleased(flightId, seats));
+                yield List.of();
+            }
+            case EXTEND -> extend(command.getSeatNumbers().get(0), command.getUserId(), command.getMinutes());
+            case EXPIRE -> List.of();
+            case IS_LOCKED -> {
+                SeatLock lock = activeLocks.get(command.getSeatNumbers().get(0));
+                yield lock != null ? List.of(SeatLockJournal.copyOf(lock)) : List.of();
+            }
+            case USER_LOCKS -> activeLocks.values().stream()
+                    .filter(lock -> lock.getUserId().equals(command.getUserId()))
+                    .map(SeatLockJournal::copyOf)
+                    .toList();
+        };
+    }
+
+    private void loadIfNeeded() {
+        if (activeLocks != null) {
+            return;
+        }
+        Map<String, SeatLock> loaded = new HashMap<>();
+        for (SeatLock lock : seatLockRepository.findActiveLocksByFlight(flightId)) {
+            loaded.put(lock.getSeatNumber(), lock);
+        }
+        activeLocks = loaded;
+    }
+
+    private List<SeatLock> lock(List<String> seatNumbers, Long userId, String sessionId,
+                                LocalDateTime now, LocalDateTime expiresAt) {
+        List<String> seats = seatNumbers.stream().distinct().toList();
+        for (String seatNumber : seats) {
+            if (activeLocks.containsKey(seatNumber)) {
+                throw new BusinessException("Seat " + seatNumber + " is already locked");
+            }
+        }
+
+        List<SeatLock> locked = new ArrayList<>(seats.size());
+        for (String seatNumber : seats) {
+            SeatLock lock = SeatLock.builder()
+                    .id(new ObjectId().toHexString())
+                    .flightId(flightId)
+                    .seatNumber(seatNumber)
+                    .userId(userId)
+                    .sessionId(sessionId)
+                    .lockedAt(now)
+                    .expiresAt(expiresAt)
+                    .status(LockStatus.ACTIVE)
+                    .build();
+            activeLocks.put(seatNumber, lock);
+            locked.add(SeatLockJournal.copyOf(lock));
+        }
+        journal.inserted(locked, () -> seatInventoryService.markLocked(flightId, seats, userId, expiresAt));
+        return locked;
+    }
+
+    private List<SeatLock> release(List<String> seatNumbers, Long userId) {
+        List<SeatLock> released = new ArrayList<>();
+        if (seatNumbers == null) {
+            activeLocks.values().stream()
+                    .filter(lock -> lock.getUserId().equals(userId))
+                    .forEach(released::add);
+        } else {
+            for (String seatNumber : seatNumbers) {
+                SeatLock lock = activeLocks.get(seatNumber);
+                if (lock == null) {
+                    continue;
+                }
+                if (!lock.getUserId().equals(userId)) {
+                    throw new BusinessException("Cannot release seat lock owned by another user");
+                }
+                released.add(lock);
+            }
+        }
+        return finish(released, LockStatus.RELEASED);
+    }
+
+    private List<SeatLock> confirm(List<String> seatNumbers, Long userId, String bookingId) {
+        List<SeatLock> confirmed = new ArrayList<>();
+        for (String seatNumber : seatNumbers) {
+            SeatLock lock = activeLocks.get(seatNumber);
+            if (lock == null) {
+                continue;
+            }
+            if (!lock.getUserId().equals(userId)) {
+                throw new BusinessException("Cannot confirm seat lock owned by another user");
+            }
+            confirmed.add(lock);
+        }
+        confirmed.forEach(lock -> lock.setBookingId(bookingId));
+        return finish(confirmed, LockStatus.CONFIRMED, seatNumbers);
+    }
+
+    private List<SeatLock> extend(String seatNumber, Long userId, int additionalMinutes) {
+        SeatLock lock = activeLocks.get(seatNumber);
+        if (lock == null || !lock.getUserId().equals(userId)) {
+            throw new BusinessException("Cannot extend seat lock not owned by user");
+        }
+        lock.setExpiresAt(lock.getExpiresAt().plusMinutes(additionalMinutes));
+        LocalDateTime expiresAt = lock.getExpiresAt();
+        journal.updated(List.of(lock), () ->
+                seatInventoryService.markLocked(flightId, List.of(seatNumber), userId, expiresAt));
+        return List.of(SeatLockJournal.copyOf(lock));
+    }
+
+    private void expireDue(LocalDateTime now) {
+        List<SeatLock> expired = activeLocks.values().stream()
+                .filter(lock -> !lock.getExpiresAt().isAfter(now))
+                .toList();
+        finish(expired, LockStatus.EXPIRED);
+    }
+
+    private List<SeatLock> finish(List<SeatLock> locks, LockStatus status) {
+        return finish(locks, status, List.of());
+    }
+
+    /**
+     * Chuyển các lock sang trạng thái kết thúc, bỏ khỏi state và ghi journal.
+     */
+    private List<SeatLock> finish(List<SeatLock> locks, LockStatus status, List<String> soldSeats) {
+        if (locks.isEmpty() && soldSeats.isEmpty()) {
+            return List.of();
+        }
+        List<String> seats = new ArrayList<>(locks.size());
+        for (SeatLock lock : locks) {
+            lock.setStatus(status);
+            activeLocks.remove(lock.getSeatNumber());
+            seats.add(lock.getSeatNumber());
+        }
+        Runnable afterWrite = switch (status) {
+            case RELEASED -> () -> seatInventoryService.markReleased(flightId, seats);
+            case EXPIRED -> () -> seatInventoryService.markExpired(flightId, seats);
+            // Các ghế của booking đều đã bán, kể cả ghế có lock vừa hết hạn
+            case CONFIRMED -> () -> seatInventoryService.markSold(flightId, soldSeats);
+            case ACTIVE -> () -> { };
+        };
+        journal.updated(locks, afterWrite);
+        return locks.stream().map(SeatLockJournal::copyOf).toList();
+    }
+}
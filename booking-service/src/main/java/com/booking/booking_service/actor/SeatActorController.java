@@ -0,0 +1,32 @@
+package com.booking.booking_service.actor;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoint nội bộ nhận lệnh seat được chuyển tiếp giữa các instance booking-service (gateway không route tới đây).
+ * Chỉ nhận khi chế độ actor bật và request mang token nội bộ dùng chung.
+ */
+@Hidden
+@RestController
+@RequiredArgsConstructor
+public class SeatActorController {
+
+    private final SeatActorSystem seatActorSystem;
+
+    @PostMapping(SeatActorSystem.COMMANDS_PATH)
+    public ResponseEntity<SeatCommandResult> execute(
+            @RequestHeader(value = SeatActorSystem.TOKEN_HEADER, required = false) String token,
+            @RequestBody SeatCommand command) {
+        if (!seatActorSystem.acceptsForwarded(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(seatActorSystem.receive(command));
+    }
+}
@@ -0,0 +1,266 @@
+package com.booking.booking_service.actor;
+
+import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.repository.SeatLockRepository;
+import com.booking.booking_service.service.SeatInventoryService;
+import com.booking.common_library.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Chế độ single-writer cho seat lock ({@code app.booking.seat-actor.enabled}): mỗi flight thuộc về đúng một
+ * instance ({@link FlightOwnership}), instance đó giữ state ghế trong bộ nhớ và xử lý lệnh lock / release /
+ * confirm tuần tự qua mailbox của flight ({@link FlightSeatActor}). Instance khác chuyển tiếp lệnh tới chủ
+ * flight qua HTTP.
+ */
+@Slf4j
+@Component
+public class SeatActorSystem {
+
+    static final String COMMANDS_PATH = "/internal/seat-actor/commands";
+    static final String TOKEN_HEADER = "X-Seat-Actor-Token";
+
+    private final FlightOwnership ownership;
+    private final SeatLockRepository seatLockRepository;
+    private final SeatLockJournal journal;
+    private final SeatInventoryService seatInventoryService;
+    private final RestTemplate restTemplate;
+
+    private final Map<String, FlightSeatActor> actors = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter forwardedCounter;
+
+    @Value("${app.booking.seat-actor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.booking.seat-actor.ask-timeout-ms:5000}")
+    private long askTimeoutMs;
+
+    @Value("${app.booking.seat-actor.handoff-timeout-ms:5000}")
+    private long handoffTimeoutMs;
+
+    // Token dùng chung giữa các instance booking-service để xác thực lệnh chuyển tiếp
+    @Value("${app.booking.seat-actor.internal-token:}")
+    private String internalToken;
+
+    public SeatActorSystem(FlightOwnership ownership,
+                           SeatLockRepository seatLockRepository,
+                           SeatLockJournal journal,
+                           SeatInventoryService seatInventoryService,
+                           RestTemplate restTemplate,
+                           MeterRegistry meterRegistry) {
+        this.ownership = ownership;
+        this.seatLockRepository = seatLockRepository;
+        this.journal = journal;
+        this.seatInventoryService = seatInventoryService;
+        this.restTemplate = restTemplate;
+        this.forwardedCounter = Counter.builder("booking.seat_actor.forwarded")
+                .description("Seat commands forwarded to the instance owning the flight")
+                .register(meterRegistry);
+        Gauge.builder("booking.seat_actor.flights", actors, Map::size)
+                .description("Flights whose seat state is held by this instance")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void validateConfiguration() {
+        if (enabled && (internalToken == null || internalToken.isBlank())) {
+            throw new IllegalStateException("app.booking.seat-actor.internal-token must be set when the seat actor mode is enabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lệnh chuyển tiếp chỉ được nhận khi chế độ actor bật và token khớp.
+     */
+    boolean acceptsForwarded(String token) {
+        return enabled && token != null && internalToken != null && !internalToken.isBlank()
+                && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), internalToken.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gửi lệnh tới actor của flight: xử lý tại chỗ nếu instance này sở hữu flight, ngược lại chuyển tiếp.
+     */
+    public List<SeatLock> send(SeatCommand command) {
+        ServiceInstance owner = ownership.remoteOwnerOf(command.getFlightId());
+        if (owner == null) {
+            return askLocal(command);
+        }
+        return forward(owner, command);
+    }
+
+    /**
+     * Giải phóng mọi lock của session. State mới nhất nằm trong các actor (journal ghi MongoDB sau), nên mọi
+     * instance giải phóng trên các flight nó đang giữ; flight chưa được actor nào nạp thì MongoDB là đủ và lệnh
+     * được gửi tới chủ của flight đó.
+     */
+    public List<SeatLock> releaseSession(String sessionId) {
+        List<SeatLock> released = new ArrayList<>(releaseSessionLocally(sessionId));
+        for (ServiceInstance member : ownership.remoteMembers()) {
+            released.addAll(forward(member, sessionCommand(null, sessionId)));
+        }
+        List<String> storedFlights = seatLockRepository.findActiveLocksBySession(sessionId).stream()
+                .map(SeatLock::getFlightId)
+                .distinct()
+                .toList();
+        for (String flightId : storedFlights) {
+            released.addAll(send(sessionCommand(flightId, sessionId)));
+        }
+        return released;
+    }
+
+    private List<SeatLock> releaseSessionLocally(String sessionId) {
+        List<SeatLock> released = new ArrayList<>();
+        actors.keySet().stream().filter(ownership::isLocal).forEach(flightId -> {
+            try {
+                released.addAll(askLocal(sessionCommand(flightId, sessionId)));
+            } catch (BusinessException e) {
+                // Flight vừa được trả cho instance khác: journal đã được đẩy hết, bước đọc MongoDB sẽ xử lý
+                log.warn("Cannot release session {} locks on flight {}: {}", sessionId, flightId, e.getMessage());
+            }
+        });
+        return released;
+    }
+
+    private static SeatCommand sessionCommand(String flightId, String sessionId) {
+        return SeatCommand.builder()
+                .type(SeatCommand.Type.RELEASE_SESSION)
+                .flightId(flightId)
+                .sessionId(sessionId)
+                .build();
+    }
+
+    private List<SeatLock> forward(ServiceInstance owner, SeatCommand command) {
+        forwardedCounter.increment();
+        SeatCommandResult result;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(TOKEN_HEADER, internalToken);
+            result = restTemplate.postForObject(owner.getUri() + COMMANDS_PATH, new HttpEntity<>(command, headers),
+                    SeatCommandResult.class);
+        } catch (RestClientException e) {
+            log.warn("Cannot forward {} for flight {} to {}: {}",
+                    command.getType(), command.getFlightId(), owner.getInstanceId(), e.getMessage());
+            throw ownerMoving(command.getFlightId());
+        }
+        if (result == null) {
+            throw ownerMoving(command.getFlightId());
+        }
+        if (result.getError() != null) {
+            if (FlightSeatActor.NOT_OWNER.equals(result.getErrorCode())) {
+                throw ownerMoving(command.getFlightId());
+            }
+            throw new BusinessException(result.getError(), result.getErrorCode());
+        }
+        return result.getLocks();
+    }
+
+    /**
+     * Nhận lệnh được chuyển tiếp từ instance khác.
+     */
+    SeatCommandResult receive(SeatCommand command) {
+        if (!enabled) {
+            return SeatCommandResult.failed("Seat actor mode is disabled on this instance", FlightSeatActor.NOT_OWNER);
+        }
+        if (command.getFlightId() == null && command.getType() == SeatCommand.Type.RELEASE_SESSION) {
+            return SeatCommandResult.ok(releaseSessionLocally(command.getSessionId()));
+        }
+        if (!ownership.isLocal(command.getFlightId())) {
+            return SeatCommandResult.failed("Flight is not owned by this instance", FlightSeatActor.NOT_OWNER);
+        }
+        try {
+            return SeatCommandResult.ok(askLocal(command));
+        } catch (BusinessException e) {
+            return SeatCommandResult.failed(e.getMessage(), e.getErrorCode());
+        }
+    }
+
+    private List<SeatLock> askLocal(SeatCommand command) {
+        FlightSeatActor actor = actors.computeIfAbsent(command.getFlightId(), flightId ->
+                new FlightSeatActor(flightId, executor, seatLockRepository, journal, seatInventoryService));
+        try {
+            return actor.ask(command).get(askTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                if (FlightSeatActor.NOT_OWNER.equals(businessException.getErrorCode())) {
+                    throw ownerMoving(command.getFlightId());
+                }
+                throw businessException;
+            }
+            throw new BusinessException("Seat command failed for flight " + command.getFlightId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new BusinessException("Seat command timed out for flight " + command.getFlightId(), "SEAT_COMMAND_TIMEOUT");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for seat command", e);
+        }
+    }
+
+    /**
+     * Hết hạn lock đúng giờ trên các flight đang nắm giữ, và trả lại các flight không còn thuộc instance này.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.seat-actor.tick-interval-ms:1000}",
+            initialDelayString = "${app.booking.seat-actor.initial-delay-ms:30000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+
+        actors.forEach((flightId, actor) -> {
+            if (ownership.isLocal(flightId)) {
+                actor.ask(SeatCommand.builder().type(SeatCommand.Type.EXPIRE).flightId(flightId).build())
+                        .exceptionally(e -> {
+                            log.warn("Cannot expire seat locks on flight {}: {}", flightId, e.getMessage());
+                            return null;
+                        });
+                return;
+            }
+            // Flight đã chuyển sang instance khác: ngừng nhận lệnh, đẩy hết journal để chủ mới nạp state mới nhất
+            actors.remove(flightId, actor);
+            actor.retire().join();
+            if (!journal.flush(handoffTimeoutMs)) {
+                log.warn("Seat lock journal not drained within {} ms while handing off flight {}", handoffTimeoutMs, flightId);
+            }
+            log.info("Handed off seat state of flight {}", flightId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static BusinessException ownerMoving(String flightId) {
+        if (flightId == null) {
+            return new BusinessException("Seat ownership is moving, please retry", "SEAT_OWNER_MOVING");
+        }
+        return new BusinessException("Seat ownership of flight " + flightId + " is moving, please retry", "SEAT_OWNER_MOVING");
+    }
+}
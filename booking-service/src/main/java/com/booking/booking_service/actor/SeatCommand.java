@@ -0,0 +1,30 @@
+package com.booking.booking_service.actor;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lệnh gửi tới actor của một flight (gọi trực tiếp hoặc chuyển tiếp tới instance sở hữu flight).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatCommand {
+
+    public enum Type {
+        LOCK, RELEASE, RELEASE_SESSION, CONFIRM, RELEASE_BOOKING, EXTEND, EXPIRE, IS_LOCKED, USER_LOCKS
+    }
+
+    private Type type;
+    private String flightId;                // null với RELEASE_SESSION chuyển tiếp: mọi flight instance nhận đang giữ
+    private List<String> seatNumbers;       // null với RELEASE: mọi ghế user đang lock
+    private Long userId;
+    private String sessionId;
+    private String bookingId;
+    private Integer minutes;                // LOCK: thời gian lock, EXTEND: số phút gia hạn
+}
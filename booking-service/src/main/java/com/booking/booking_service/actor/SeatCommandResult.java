@@ -0,0 +1,27 @@
+package com.booking.booking_service.actor;
+
+import com.booking.booking_service.entity.SeatLock;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatCommandResult {
+    private List<SeatLock> locks;
+    private String error;
+    private String errorCode;
+
+    static SeatCommandResult ok(List<SeatLock> locks) {
+        return SeatCommandResult.builder().locks(locks).build();
+    }
+
+    static SeatCommandResult failed(String error, String errorCode) {
+        return SeatCommandResult.builder().error(error).errorCode(errorCode).build();
+    }
+}
@@ -0,0 +1,310 @@
+package com.booking.booking_service.actor;
+
+import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.utils.LockStatus;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ghi thay đổi seat lock của các actor xuống MongoDB bất đồng bộ, theo batch (một luồng ghi, bulk UNORDERED).
+ * Collection seat_locks là nguồn để actor khôi phục state khi đổi chủ.
+ * <p>
+ * Batch được chia thành các lượt sao cho mỗi lock chỉ xuất hiện một lần trong một lượt: thay đổi trên cùng một lock
+ * vẫn theo đúng thứ tự phát sinh, còn lỗi của một thay đổi (vd. trùng active_seat_lock_uq khi đổi chủ) chỉ bỏ
+ * thay đổi đó, không kéo theo thay đổi của flight khác trong cùng batch.
+ * Side effect (cập nhật seat inventory / seat map) chạy sau khi thay đổi đó đã được ghi.
+ */
+@Slf4j
+@Component
+public class SeatLockJournal {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final BlockingQueue<Entry> pending;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    private final int batchSize;
+    private final Thread writer;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile boolean running = true;
+
+    public SeatLockJournal(MongoTemplate mongoTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.booking.seat-actor.journal-capacity:100000}") int capacity,
+                           @Value("${app.booking.seat-actor.journal-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.pending = new LinkedBlockingQueue<>(capacity);
+        this.writtenCounter = Counter.builder("booking.seat_actor.journal.written")
+                .description("Seat lock changes written to MongoDB")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("booking.seat_actor.journal.dropped")
+                .description("Seat lock changes rejected by MongoDB or given up on after repeated write failures")
+                .register(meterRegistry);
+        Gauge.builder("booking.seat_actor.journal.pending", pending, BlockingQueue::size)
+                .description("Seat lock changes waiting to be written")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "seat-lock-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    void inserted(List<SeatLock> locks, Runnable afterWrite) {
+        List<SeatLock> snapshots = locks.stream().map(SeatLockJournal::copyOf).toList();
+        append(new Entry(lockIds(locks), snapshots.size(), ops -> ops.insert(snapshots), afterWrite));
+    }
+
+    void updated(List<SeatLock> locks, Runnable afterWrite) {
+        List<Pair<Query, UpdateDefinition>> updates = locks.stream()
+                .map(lock -> Pair.<Query, UpdateDefinition>of(Query.query(Criteria.where("id").is(lock.getId())),
+                        Update.update("status", lock.getStatus())
+                                .set("bookingId", lock.getBookingId())
+                                .set("expiresAt", lock.getExpiresAt())))
+                .toList();
+        append(new Entry(orderingKeys(locks), updates.size(), ops -> {
+            if (!updates.isEmpty()) {
+                ops.updateOne(updates);
+            }
+        }, afterWrite));
+    }
+
+    /**
+     * Chuyển các lock CONFIRMED của booking sang RELEASED (booking đã thanh toán bị hủy).
+     * Cùng khóa thứ tự với thay đổi CONFIRM của booking nên luôn được ghi sau nó.
+     */
+    void bookingReleased(String bookingId, Runnable afterWrite) {
+        Query query = Query.query(Criteria.where("bookingId").is(bookingId).and("status").is(LockStatus.CONFIRMED));
+        Update update = Update.update("status", LockStatus.RELEASED);
+        append(new Entry(List.of(bookingKey(bookingId)), 1, ops -> ops.updateMulti(query, update), afterWrite));
+    }
+
+    /**
+     * Chờ các thay đổi đang chờ được ghi xong (dùng khi trả flight cho instance khác).
+     */
+    boolean flush(long timeoutMs) {
+        long target = appended.get();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (completed.get() < target) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(Entry entry) {
+        try {
+            // Journal đầy thì actor chờ (backpressure) thay vì bỏ thay đổi
+            appended.incrementAndGet();
+            pending.put(entry);
+        } catch (InterruptedException e) {
+            appended.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while journaling seat lock change", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                completed.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) throws InterruptedException {
+        for (List<Entry> round : rounds(batch)) {
+            for (Entry entry : writeRound(round)) {
+                try {
+                    entry.afterWrite().run();
+                } catch (Exception e) {
+                    log.warn("Seat lock journal side effect failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Entry vào lượt ngay sau lượt cuối cùng có chạm tới một trong các lock của nó.
+     */
+    private static List<List<Entry>> rounds(List<Entry> batch) {
+        Map<String, Integer> lastRound = new HashMap<>();
+        List<List<Entry>> rounds = new ArrayList<>();
+        for (Entry entry : batch) {
+            int round = 0;
+            for (String lockId : entry.lockIds()) {
+                Integer last = lastRound.get(lockId);
+                if (last != null) {
+                    round = Math.max(round, last + 1);
+                }
+            }
+            while (rounds.size() <= round) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(entry);
+            for (String lockId : entry.lockIds()) {
+                lastRound.put(lockId, round);
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * Ghi một lượt, trả về các entry đã được ghi (entry có thao tác lỗi bị bỏ, các entry khác vẫn giữ).
+     */
+    private List<Entry> writeRound(List<Entry> round) throws InterruptedException {
+        if (round.stream().mapToInt(Entry::operations).sum() == 0) {
+            return round;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatLock.class);
+                round.forEach(entry -> entry.write().accept(ops));
+                ops.execute();
+                writtenCounter.increment(round.size());
+                return round;
+            } catch (BulkOperationException e) {
+                // Lỗi từ server chỉ thuộc về các thao tác được nêu; thao tác khác trong lượt đã được ghi
+                boolean retried = attempt > 1;
+                Set<Integer> failedOperations = new HashSet<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    if (!(retried && isAlreadyInserted(error))) {
+                        failedOperations.add(error.getIndex());
+                    }
+                }
+                return dropFailed(round, failedOperations, e);
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    droppedCounter.increment(round.size());
+                    log.error("Giving up on journaling {} seat lock changes: {}", round.size(), e.getMessage());
+                    return List.of();
+                }
+                log.warn("Seat lock journal write failed (attempt {}), retrying: {}", attempt, e.getMessage());
+                Thread.sleep(100L << attempt);
+            }
+        }
+    }
+
+    private List<Entry> dropFailed(List<Entry> round, Set<Integer> failedOperations, BulkOperationException e) {
+        List<Entry> written = new ArrayList<>(round.size());
+        int offset = 0;
+        for (Entry entry : round) {
+            boolean failed = false;
+            for (int index = offset; index < offset + entry.operations(); index++) {
+                failed |= failedOperations.contains(index);
+            }
+            offset += entry.operations();
+            if (failed) {
+                droppedCounter.increment();
+                log.error("Dropping seat lock change for locks {}: {}", entry.lockIds(), e.getMessage());
+            } else {
+                written.add(entry);
+            }
+        }
+        writtenCounter.increment(written.size());
+        return written;
+    }
+
+    // Lần thử trước bị lỗi mạng nhưng server đã ghi: insert lại trùng _id nghĩa là đã có
+    private static boolean isAlreadyInserted(BulkWriteError error) {
+        return error.getCode() == DUPLICATE_KEY_ERROR && error.getMessage() != null && error.getMessage().contains("_id_");
+    }
+
+    private static List<String> lockIds(List<SeatLock> locks) {
+        return locks.stream().map(SeatLock::getId).toList();
+    }
+
+    // Lock id và booking của lock: thay đổi theo booking được xếp lượt giống thay đổi theo lock
+    private static List<String> orderingKeys(List<SeatLock> locks) {
+        List<String> keys = new ArrayList<>(lockIds(locks));
+        locks.stream().map(SeatLock::getBookingId).filter(Objects::nonNull).distinct()
+                .map(SeatLockJournal::bookingKey).forEach(keys::add);
+        return keys;
+    }
+
+    private static String bookingKey(String bookingId) {
+        return "booking:" + bookingId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Seat lock journal shut down with {} pending changes", pending.size());
+        }
+    }
+
+    static SeatLock copyOf(SeatLock lock) {
+        return SeatLock.builder()
+                .id(lock.getId())
+                .flightId(lock.getFlightId())
+                .seatNumber(lock.getSeatNumber())
+                .userId(lock.getUserId())
+                .bookingId(lock.getBookingId())
+                .lockedAt(lock.getLockedAt())
+                .expiresAt(lock.getExpiresAt())
+                .status(lock.getStatus())
+                .sessionId(lock.getSessionId())
+                .build();
+    }
+
+    private record Entry(List<String> lockIds, int operations, Consumer<BulkOperations> write, Runnable afterWrite) {
+    }
+}
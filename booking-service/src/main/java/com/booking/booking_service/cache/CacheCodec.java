@@ -0,0 +1,15 @@
+package com.booking.booking_service.cache;
+
+/**
+ * Mã hóa / giải mã DTO lưu trên Redis. Payload bắt đầu bằng tag và version của {@link CachedType},
+ * sau đó là dữ liệu, và được giải mã thẳng thành kiểu đích (không qua Map / convertValue).
+ */
+public interface CacheCodec {
+
+    <T> byte[] encode(CachedType<T> type, T value);
+
+    /**
+     * Trả về null nếu payload không phải của kiểu / version này (coi như cache miss).
+     */
+    <T> T decode(CachedType<T> type, byte[] payload);
+}
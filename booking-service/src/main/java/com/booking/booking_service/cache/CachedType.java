@@ -0,0 +1,34 @@
+package com.booking.booking_service.cache;
+
+import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import com.booking.common_library.dto.PageResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.Getter;
+
+/**
+ * Kiểu dữ liệu lưu trên Redis qua {@link CacheCodec}: tag định danh kiểu, version định dạng.
+ * Đổi cấu trúc DTO theo cách không tương thích thì tăng version, entry cũ sẽ thành cache miss.
+ */
+@Getter
+public final class CachedType<T> {
+
+    public static final CachedType<FlightResponse> FLIGHT =
+            new CachedType<>("flight", 1, 1, new TypeReference<>() {});
+    public static final CachedType<PageResponse<FlightResponse>> FLIGHT_PAGE =
+            new CachedType<>("flight_page", 2, 1, new TypeReference<>() {});
+    public static final CachedType<SeatMapDelta> SEAT_MAP_DELTA =
+            new CachedType<>("seat_map_delta", 3, 1, new TypeReference<>() {});
+
+    private final String name;
+    private final byte tag;
+    private final byte version;
+    private final TypeReference<T> typeReference;
+
+    private CachedType(String name, int tag, int version, TypeReference<T> typeReference) {
+        this.name = name;
+        this.tag = (byte) tag;
+        this.version = (byte) version;
+        this.typeReference = typeReference;
+    }
+}
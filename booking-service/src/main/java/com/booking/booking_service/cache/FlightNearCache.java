@@ -0,0 +1,110 @@
+package com.booking.booking_service.cache;
+
+import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.utils.SeatClass;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache L1 trong JVM (Caffeine, W-TinyLFU) đặt trước cache "flight:" trên Redis.
+ * Khi flight thay đổi, entry bị xóa ở local và các instance khác được báo qua Redis pub/sub.
+ * FlightResponse trong cache được dùng chung giữa các request nên chỉ đọc, không sửa.
+ */
+@Slf4j
+@Component
+public class FlightNearCache {
+
+    public static final String INVALIDATION_CHANNEL = "flight_cache:invalidate";
+    public static final String SEAT_COUNTERS_CHANNEL = "flight_cache:seats";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Cache<String, FlightResponse> flights;
+
+    public FlightNearCache(RedisTemplate<String, Object> redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.booking.flight-near-cache.max-size:10000}") long maxSize,
+                           @Value("${app.booking.flight-near-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.flights = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // TTL ngắn để giới hạn thời gian dữ liệu cũ nếu bị lỡ message invalidate
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, flights, "flightNearCache");
+    }
+
+    public FlightResponse get(String flightId, Function<String, FlightResponse> loader) {
+        return flights.get(flightId, loader);
+    }
+
+    /**
+     * Xóa flight khỏi L1 của mọi instance.
+     */
+    public void invalidate(String flightId) {
+        flights.invalidate(flightId);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, flightId);
+        } catch (Exception e) {
+            log.warn("Cannot publish flight cache invalidation for {}: {}", flightId, e.getMessage());
+        }
+    }
+
+    public void evictLocal(String flightId) {
+        flights.invalidate(flightId);
+    }
+
+    /**
+     * Cập nhật số ghế trống của flight trong L1 của mọi instance (không xóa entry).
+     */
+    public void publishSeatCounters(FlightSeatCounters counters) {
+        applySeatCounters(counters);
+        try {
+            redisTemplate.convertAndSend(SEAT_COUNTERS_CHANNEL, counters);
+        } catch (Exception e) {
+            // L1 của instance khác tự hết hạn theo TTL
+            log.warn("Cannot publish seat counters for {}: {}", counters.getFlightId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Thay entry bằng bản sao có counter mới; entry đang được đọc không bị sửa.
+     */
+    public void applySeatCounters(FlightSeatCounters counters) {
+        flights.asMap().computeIfPresent(counters.getFlightId(), (flightId, current) -> {
+            if (counters.isOlderThan(current.getUpdatedAt())) {
+                return current;
+            }
+            FlightResponse updated = current.toBuilder()
+                    .availableSeats(counters.getAvailableSeats())
+                    .updatedAt(counters.getUpdatedAt())
+                    .build();
+            if (current.getSeatConfiguration() != null) {
+                updated.setSeatConfiguration(current.getSeatConfiguration().stream()
+                        .map(info -> info.toBuilder()
+                                .availableSeats(counters.availableSeats(seatClassOf(info.getSeatClass()),
+                                        info.getAvailableSeats()))
+                                .build())
+                        .toList());
+            }
+            return updated;
+        });
+    }
+
+    private static SeatClass seatClassOf(String seatClass) {
+        try {
+            return seatClass != null ? SeatClass.valueOf(seatClass) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.booking.booking_service.cache;
+
+import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.common_library.dto.PageResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache kết quả search theo slice route + ngày bay.
+ * Mỗi slice có một namespace version trên Redis; key của kết quả chứa version hiện tại,
+ * nên invalidate một slice chỉ là một lệnh INCR (O(1)), không cần KEYS/SCAN.
+ * Entry của version cũ không còn được đọc và tự hết hạn theo TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlightSearchCache {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final CacheCodec cacheCodec;
+
+    private static final String SEARCH_CACHE_PREFIX = "search:";
+    private static final String SEARCH_NAMESPACE_PREFIX = "search_ns:";
+    private static final long RESULT_TTL_MINUTES = 5;
+
+    /**
+     * Key chuẩn hóa: slice:version:tham số query (không phụ thuộc hashCode hay toString của request).
+     */
+    public String cacheKey(String departureAirport, String arrivalAirport, LocalDate departureDate, String queryKey) {
+        String slice = slice(departureAirport, arrivalAirport, departureDate);
+        return SEARCH_CACHE_PREFIX + slice + ":v" + namespaceVersion(slice) + ":" + queryKey;
+    }
+
+    public PageResponse<FlightResponse> get(String cacheKey) {
+        return cacheCodec.decode(CachedType.FLIGHT_PAGE, binaryRedisTemplate.opsForValue().get(cacheKey));
+    }
+
+    public void put(String cacheKey, PageResponse<FlightResponse> result) {
+        binaryRedisTemplate.opsForValue().set(cacheKey, cacheCodec.encode(CachedType.FLIGHT_PAGE, result),
+                RESULT_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public void invalidate(String departureAirport, String arrivalAirport, LocalDate departureDate) {
+        if (departureAirport == null || arrivalAirport == null || departureDate == null) {
+            return;
+        }
+        String slice = slice(departureAirport, arrivalAirport, departureDate);
+        redisTemplate.opsForValue().increment(SEARCH_NAMESPACE_PREFIX + slice);
+        log.debug("Invalidated search cache slice {}", slice);
+    }
+
+    private long namespaceVersion(String slice) {
+        Object version = redisTemplate.opsForValue().get(SEARCH_NAMESPACE_PREFIX + slice);
+        return version instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private String slice(String departureAirport, String arrivalAirport, LocalDate departureDate) {
+        return departureAirport + ":" + arrivalAirport + ":" + departureDate;
+    }
+}
@@ -0,0 +1,57 @@
+package com.booking.booking_service.cache;
+
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.SeatConfiguration;
+import com.booking.booking_service.utils.SeatClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Số ghế trống mới của một flight, gửi qua Redis pub/sub để các instance cập nhật near cache
+ * và search index tại chỗ thay vì xóa entry rồi đọc lại từ MongoDB.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightSeatCounters {
+    private String flightId;
+    private Integer availableSeats;
+    private Map<SeatClass, Integer> availableSeatsByClass;
+    private LocalDateTime updatedAt;                    // Bỏ qua message cũ hơn bản đang giữ
+
+    public static FlightSeatCounters of(Flight flight) {
+        Map<SeatClass, Integer> byClass = new EnumMap<>(SeatClass.class);
+        if (flight.getSeatConfiguration() != null) {
+            for (SeatConfiguration config : flight.getSeatConfiguration()) {
+                if (config.getSeatClass() != null && config.getAvailableSeats() != null) {
+                    byClass.put(config.getSeatClass(), config.getAvailableSeats());
+                }
+            }
+        }
+        return FlightSeatCounters.builder()
+                .flightId(flight.getId())
+                .availableSeats(flight.getAvailableSeats())
+                .availableSeatsByClass(byClass)
+                .updatedAt(flight.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * {@code true} nếu bản đang giữ (có {@code currentUpdatedAt}) mới hơn message này.
+     */
+    public boolean isOlderThan(LocalDateTime currentUpdatedAt) {
+        return updatedAt != null && currentUpdatedAt != null && updatedAt.isBefore(currentUpdatedAt);
+    }
+
+    public Integer availableSeats(SeatClass seatClass, Integer fallback) {
+        Integer seats = availableSeatsByClass != null && seatClass != null ? availableSeatsByClass.get(seatClass) : null;
+        return seats != null ? seats : fallback;
+    }
+}
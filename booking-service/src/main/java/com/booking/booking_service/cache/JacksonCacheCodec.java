@@ -0,0 +1,78 @@
+package com.booking.booking_service.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CacheCodec} dùng Jackson với định dạng Smile (JSON nhị phân, mặc định) hoặc JSON.
+ * Không ghi tên class vào payload; reader / writer của từng kiểu được tạo một lần rồi dùng lại.
+ */
+@Slf4j
+public class JacksonCacheCodec implements CacheCodec {
+
+    private static final int HEADER_LENGTH = 2;
+
+    private final ObjectMapper objectMapper;
+    private final Map<CachedType<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<CachedType<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JacksonCacheCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper
+                .registerModule(new JavaTimeModule())
+                // Field mới thêm vào DTO không làm hỏng entry cũ
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public static JacksonCacheCodec smile() {
+        SmileFactory smileFactory = SmileFactory.builder()
+                // Mã sân bay, hãng bay... lặp lại nhiều trong một trang kết quả
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new JacksonCacheCodec(new ObjectMapper(smileFactory));
+    }
+
+    public static JacksonCacheCodec json() {
+        return new JacksonCacheCodec(new ObjectMapper());
+    }
+
+    @Override
+    public <T> byte[] encode(CachedType<T> type, T value) {
+        ObjectWriter writer = writers.computeIfAbsent(type, t -> objectMapper.writerFor(t.getTypeReference()));
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(type.getTag());
+            out.write(type.getVersion());
+            writer.writeValue(out, value);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(CachedType<T> type, byte[] payload) {
+        if (payload == null || payload.length <= HEADER_LENGTH
+                || payload[0] != type.getTag() || payload[1] != type.getVersion()) {
+            return null;
+        }
+        ObjectReader reader = readers.computeIfAbsent(type, t -> objectMapper.readerFor(t.getTypeReference()));
+        try {
+            return reader.readValue(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH);
+        } catch (IOException e) {
+            log.warn("Cannot decode cached {}: {}", type.getName(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.booking.booking_service.cache;
+
+import com.booking.booking_service.dto.respone.SeatMapResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache seat map dùng chung (không phụ thuộc user) theo flight, gắn với state tag của seat inventory.
+ * Entry chỉ được dùng khi state tag còn khớp; kích thước và thời gian idle được giới hạn để flight cũ không nằm mãi trong heap.
+ */
+@Component
+public class SeatMapCache {
+
+    private final Cache<String, CachedSeatMap> seatMaps;
+
+    public SeatMapCache(MeterRegistry meterRegistry,
+                        @Value("${app.booking.seat-map-cache.max-size:2000}") long maxSize,
+                        @Value("${app.booking.seat-map-cache.idle-minutes:30}") long idleMinutes) {
+        this.seatMaps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, seatMaps, "seatMapCache");
+    }
+
+    public SeatMapResponse get(String flightId, String stateTag) {
+        CachedSeatMap cached = seatMaps.getIfPresent(flightId);
+        return cached != null && cached.stateTag().equals(stateTag) ? cached.seatMap() : null;
+    }
+
+    public void put(String flightId, String stateTag, SeatMapResponse seatMap) {
+        seatMaps.put(flightId, new CachedSeatMap(stateTag, seatMap));
+    }
+
+    public void evict(String flightId) {
+        seatMaps.invalidate(flightId);
+    }
+
+    private record CachedSeatMap(String stateTag, SeatMapResponse seatMap) {
+    }
+}
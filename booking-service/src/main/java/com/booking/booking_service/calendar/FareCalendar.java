@@ -0,0 +1,273 @@
+package com.booking.booking_service.calendar;
+
+import com.booking.booking_service.dto.respone.FareCalendarDay;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.RouteDaySummary;
+import com.booking.booking_service.pricing.FareEngine;
+import com.booking.booking_service.pricing.FareTable;
+import com.booking.booking_service.utils.FlightStatus;
+import com.booking.booking_service.utils.SeatClass;
+import com.booking.common_library.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Lịch giá theo route: mỗi (route, ngày bay) là một document {@link RouteDaySummary}, được cập nhật từng flight
+ * khi flight được tạo / sửa / xóa / import và khi số ghế trống thay đổi (đặt chỗ, hủy, hết hạn).
+ * Đọc N ngày là một query trên N document, không đọc từng flight.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FareCalendar {
+
+    private final MongoTemplate mongoTemplate;
+    private final FareEngine fareEngine;
+
+    @Value("${app.booking.fare-calendar.max-days:60}")
+    private int maxDays;
+
+    @Value("${app.booking.fare-calendar.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    public List<FareCalendarDay> getCalendar(String departureAirport, String arrivalAirport, LocalDate from, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new BusinessException("Fare calendar covers 1 to " + maxDays + " days", "INVALID_DATE_RANGE");
+        }
+        LocalDate to = from.plusDays(days - 1L);
+
+        Query query = Query.query(Criteria.where("departureAirport").is(departureAirport)
+                .and("arrivalAirport").is(arrivalAirport)
+                .and("departureDate").gte(from).lte(to));
+        Map<LocalDate, RouteDaySummary> summaries = new HashMap<>();
+        for (RouteDaySummary summary : mongoTemplate.find(query, RouteDaySummary.class)) {
+            summaries.put(summary.getDepartureDate(), summary);
+        }
+
+        List<FareCalendarDay> calendar = new ArrayList<>(days);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            calendar.add(toDay(date, summaries.get(date)));
+        }
+        return calendar;
+    }
+
+    /**
+     * Ghi lại entry của flight (hoặc bỏ entry nếu flight không còn SCHEDULED).
+     * Entry chỉ bị ghi đè bởi snapshot có updatedAt không cũ hơn, nên các cập nhật ghế đến trễ / sai thứ tự bị bỏ qua.
+     * Gọi ngoài transaction booking; lỗi chỉ được log, entry sẽ được ghi lại ở lần thay đổi sau.
+     */
+    public void onFlightChanged(Flight flight) {
+        try {
+            if (!isListed(flight)) {
+                remove(flight.getId(), flight.getDepartureAirport(), flight.getArrivalAirport(), flight.getDepartureTime());
+                return;
+            }
+            writeEntry(flight);
+        } catch (Exception e) {
+            log.warn("Cannot update fare calendar for flight {}: {}", flight.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Flight đổi route / ngày bay: bỏ entry ở ngày cũ rồi ghi entry mới.
+     */
+    public void onFlightMoved(Flight flight, String previousDepartureAirport, String previousArrivalAirport,
+                              LocalDateTime previousDepartureTime) {
+        String previousId = summaryId(previousDepartureAirport, previousArrivalAirport, previousDepartureTime);
+        if (previousId != null && !previousId.equals(summaryId(flight))) {
+            onFlightRemoved(flight.getId(), previousDepartureAirport, previousArrivalAirport, previousDepartureTime);
+        }
+        onFlightChanged(flight);
+    }
+
+    public void onFlightRemoved(String flightId, String departureAirport, String arrivalAirport, LocalDateTime departureTime) {
+        try {
+            remove(flightId, departureAirport, arrivalAirport, departureTime);
+        } catch (Exception e) {
+            log.warn("Cannot remove flight {} from fare calendar: {}", flightId, e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi entry cho một batch flight bằng một bulk write (dùng khi import).
+     */
+    public void onFlightsAdded(Collection<Flight> flights) {
+        List<Flight> listed = flights.stream().filter(this::isListed).toList();
+        if (listed.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RouteDaySummary.class);
+            listed.forEach(flight -> ops.upsert(idQuery(flight), upsertEntry(flight)));
+            ops.execute();
+        } catch (Exception e) {
+            log.warn("Cannot update fare calendar for {} imported flights: {}", listed.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Dựng lịch giá từ các flight hiện có khi collection còn trống (lần đầu bật tính năng).
+     */
+    @Scheduled(initialDelayString = "${app.booking.fare-calendar.backfill-delay-ms:30000}")
+    public void backfillIfEmpty() {
+        try {
+            if (mongoTemplate.estimatedCount(RouteDaySummary.class) > 0) {
+                return;
+            }
+            Query query = Query.query(Criteria.where("status").is(FlightStatus.SCHEDULED)
+                    .and("departureTime").gte(LocalDate.now().atStartOfDay()));
+            List<Flight> batch = new ArrayList<>(backfillBatchSize);
+            long total = 0;
+            try (Stream<Flight> flights = mongoTemplate.stream(query, Flight.class)) {
+                Iterator<Flight> iterator = flights.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() >= backfillBatchSize) {
+                        onFlightsAdded(batch);
+                        total += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            onFlightsAdded(batch);
+            total += batch.size();
+            log.info("Fare calendar backfilled from {} scheduled flights", total);
+        } catch (Exception e) {
+            log.error("Error backfilling fare calendar: {}", e.getMessage());
+        }
+    }
+
+    private FareCalendarDay toDay(LocalDate date, RouteDaySummary summary) {
+        Map<String, RouteDaySummary.FlightSummary> flights = summary != null && summary.getFlights() != null
+                ? summary.getFlights() : Map.of();
+
+        int seatsLeft = 0;
+        Map<SeatClass, Long> lowest = new EnumMap<>(SeatClass.class);
+        for (RouteDaySummary.FlightSummary flight : flights.values()) {
+            seatsLeft += flight.getSeatsLeft() != null ? flight.getSeatsLeft() : 0;
+            if (flight.getFares() != null) {
+                flight.getFares().forEach((seatClass, fare) -> lowest.merge(seatClass, fare, Math::min));
+            }
+        }
+
+        Map<SeatClass, BigDecimal> lowestFares = new EnumMap<>(SeatClass.class);
+        lowest.forEach((seatClass, fare) -> lowestFares.put(seatClass, fareEngine.toAmount(fare)));
+        return FareCalendarDay.builder()
+                .date(date)
+                .flightCount(flights.size())
+                .seatsLeft(seatsLeft)
+                .lowestFares(lowestFares)
+                .build();
+    }
+
+    private void writeEntry(Flight flight) {
+        String entryPath = "flights." + flight.getId();
+        LocalDateTime updatedAt = snapshotTime(flight);
+        Query newerOrMissing = Query.query(new Criteria().andOperator(
+                Criteria.where("id").is(summaryId(flight)),
+                new Criteria().orOperator(
+                        Criteria.where(entryPath).exists(false),
+                        Criteria.where(entryPath + ".updated_at").lte(updatedAt))));
+        Query documentMissing = Query.query(Criteria.where("id").is(summaryId(flight)).and(entryPath).exists(false));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (mongoTemplate.updateFirst(newerOrMissing, upsertEntry(flight), RouteDaySummary.class).getMatchedCount() > 0) {
+                return;
+            }
+            try {
+                // Chưa có document cho ngày này: upsert tạo mới; đã có entry mới hơn thì upsert đụng _id và bị bỏ qua
+                mongoTemplate.upsert(documentMissing, upsertEntry(flight), RouteDaySummary.class);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Instance khác vừa tạo document hoặc entry mới hơn: thử lại update có điều kiện
+            }
+        }
+        log.debug("Skipped stale fare calendar entry for flight {} at {}", flight.getId(), updatedAt);
+    }
+
+    private Update upsertEntry(Flight flight) {
+        return new Update()
+                .setOnInsert("departureAirport", flight.getDepartureAirport())
+                .setOnInsert("arrivalAirport", flight.getArrivalAirport())
+                .setOnInsert("departureDate", flight.getDepartureTime().toLocalDate())
+                .set("flights." + flight.getId(), summarize(flight));
+    }
+
+    /**
+     * Giá hiện tại (theo bậc tải ghế, cùng cách tính với search) và số ghế trống của từng hạng còn chỗ.
+     */
+    private RouteDaySummary.FlightSummary summarize(Flight flight) {
+        FareTable fareTable = fareEngine.tableFor(flight);
+        Map<SeatClass, Integer> seatsByClass = new EnumMap<>(SeatClass.class);
+        Map<SeatClass, Long> fares = new EnumMap<>(SeatClass.class);
+        for (SeatClass seatClass : SeatClass.values()) {
+            Integer available = fareEngine.availableSeats(flight, seatClass);
+            if (available != null && available > 0) {
+                seatsByClass.put(seatClass, available);
+                fares.put(seatClass, fareTable.total(seatClass, fareTable.tierFor(seatClass, available), 1, 0, 0));
+            }
+        }
+        return RouteDaySummary.FlightSummary.builder()
+                .seatsLeft(flight.getAvailableSeats())
+                .seatsLeftByClass(seatsByClass)
+                .fares(fares)
+                .updatedAt(snapshotTime(flight))
+                .build();
+    }
+
+    private void remove(String flightId, String departureAirport, String arrivalAirport, LocalDateTime departureTime) {
+        String id = summaryId(departureAirport, arrivalAirport, departureTime);
+        if (id == null) {
+            return;
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+                new Update().unset("flights." + flightId), RouteDaySummary.class);
+    }
+
+    private static LocalDateTime snapshotTime(Flight flight) {
+        // Cùng độ chính xác millisecond với giá trị lưu trong MongoDB để so sánh updatedAt ổn định
+        LocalDateTime updatedAt = flight.getUpdatedAt() != null ? flight.getUpdatedAt() : LocalDateTime.now();
+        return updatedAt.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private boolean isListed(Flight flight) {
+        return flight.getStatus() == FlightStatus.SCHEDULED && summaryId(flight) != null;
+    }
+
+    private Query idQuery(Flight flight) {
+        return Query.query(Criteria.where("id").is(summaryId(flight)));
+    }
+
+    private static String summaryId(Flight flight) {
+        return summaryId(flight.getDepartureAirport(), flight.getArrivalAirport(), flight.getDepartureTime());
+    }
+
+    private static String summaryId(String departureAirport, String arrivalAirport, LocalDateTime departureTime) {
+        if (departureAirport == null || arrivalAirport == null || departureTime == null) {
+            return null;
+        }
+        return departureAirport + ":" + arrivalAirport + ":" + departureTime.toLocalDate();
+    }
+}
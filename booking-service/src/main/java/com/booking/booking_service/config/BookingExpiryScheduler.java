@@ -0,0 +1,99 @@
+package com.booking.booking_service.config;
+
+import com.booking.booking_service.entity.Booking;
+import com.booking.booking_service.repository.BookingRepository;
+import com.booking.booking_service.service.BookingExpiryQueueService;
+import com.booking.booking_service.service.BookingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Expire các booking LOCKED quá hạn thanh toán.
+ * Mỗi lần poll duyệt tất cả shard (bắt đầu từ shard ngẫu nhiên để các instance không cùng dồn vào một shard),
+ * claim theo batch rồi gọi {@link BookingService#expireBooking}.
+ */
+@Component
+@Slf4j
+public class BookingExpiryScheduler {
+
+    private final BookingExpiryQueueService bookingExpiryQueueService;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+
+    private final Counter expiredCounter;
+    private final Counter failedCounter;
+
+    @Value("${app.booking.expiry.batch-size:200}")
+    private int batchSize;
+
+    public BookingExpiryScheduler(BookingExpiryQueueService bookingExpiryQueueService,
+                                  BookingService bookingService,
+                                  BookingRepository bookingRepository,
+                                  MeterRegistry meterRegistry) {
+        this.bookingExpiryQueueService = bookingExpiryQueueService;
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        // Rate của counter (expirations/second) xem qua /actuator/metrics
+        this.expiredCounter = Counter.builder("booking.expiry.expired")
+                .description("Bookings expired by the expiry scheduler")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("booking.expiry.failed")
+                .description("Bookings the expiry scheduler failed to expire")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.booking.expiry.poll-interval-ms:1000}")
+    public void expireDueBookings() {
+        int shardCount = bookingExpiryQueueService.getShardCount();
+        int startShard = ThreadLocalRandom.current().nextInt(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            int shard = (startShard + i) % shardCount;
+            List<String> bookingIds;
+            try {
+                bookingIds = bookingExpiryQueueService.claimDue(shard, batchSize);
+            } catch (Exception e) {
+                log.warn("Cannot poll booking expiry queue: {}", e.getMessage());
+                return;
+            }
+
+            for (String bookingId : bookingIds) {
+                try {
+                    bookingService.expireBooking(bookingId);
+                    expiredCounter.increment();
+                } catch (Exception e) {
+                    // Đã bị lấy khỏi queue, sweep định kỳ sẽ đưa lại nếu booking vẫn LOCKED
+                    failedCounter.increment();
+                    log.error("Error expiring booking {}: {}", bookingId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sweep dự phòng: đưa lại vào queue các booking LOCKED đã quá hạn nhưng chưa được expire.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.expiry.sweep-interval-ms:300000}",
+            initialDelayString = "${app.booking.expiry.sweep-initial-delay-ms:60000}")
+    public void requeueOverdueBookings() {
+        try {
+            List<Booking> overdueBookings = bookingRepository.findExpiredLocks(LocalDateTime.now());
+            for (Booking booking : overdueBookings) {
+                bookingExpiryQueueService.schedule(booking.getId(), booking.getLockExpiresAt());
+            }
+            if (!overdueBookings.isEmpty()) {
+                log.info("Re-queued {} overdue bookings for expiry", overdueBookings.size());
+            }
+        } catch (Exception e) {
+            log.error("Error re-queuing overdue bookings", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.booking.booking_service.config;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Transaction ngắn chỉ bao booking + event trong outbox. Counter ghế, seat lock, lịch giá và Redis nằm ngoài
+ * transaction để không tranh chấp document flight / route-day và không bị rollback một nửa.
+ * Transaction bị abort vì TransientTransactionError (vd. WriteConflict) được chạy lại.
+ */
+@Slf4j
+@Component
+public class BookingTransactions {
+
+    private static final String TRANSIENT_TRANSACTION_ERROR = "TransientTransactionError";
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public BookingTransactions(PlatformTransactionManager transactionManager,
+                               @Value("${app.booking.transaction.max-attempts:5}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                log.warn("Retrying booking transaction after transient error (attempt {}): {}", attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.hasErrorLabel(TRANSIENT_TRANSACTION_ERROR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying booking transaction", e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.booking.booking_service.config;
+
+import com.booking.booking_service.entity.Booking;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.OutboxEvent;
+import com.booking.booking_service.entity.RouteDaySummary;
+import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.utils.LockStatus;
+import com.mongodb.ExplainVerbosity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tạo các index khai báo trên entity (@CompoundIndex / @Indexed) và kiểm tra query plan của các repository query.
+ * <p>
+ * Mặc định index được tạo nền sau khi khởi động. Khi bật {@code app.booking.mongo.query-plan-check.enabled}
+ * (CI / staging), index được tạo ngay lúc startup rồi chạy explain() cho từng query;
+ * app không khởi động nếu có query nào COLLSCAN.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(Flight.class, SeatLock.class, Booking.class, OutboxEvent.class,
+            RouteDaySummary.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+
+    private volatile boolean indexesEnsured;
+
+    @Value("${app.booking.mongo.query-plan-check.enabled:false}")
+    private boolean queryPlanCheckEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!queryPlanCheckEnabled) {
+            return;
+        }
+        ensureIndexes();
+
+        List<String> collectionScans = findCollectionScans();
+        if (!collectionScans.isEmpty()) {
+            throw new IllegalStateException("Queries without a usable index (COLLSCAN): " + collectionScans);
+        }
+        log.info("Query plan check passed: all repository queries use an index");
+    }
+
+    /**
+     * Chạy lại định kỳ cho tới khi mọi index đã được tạo (vd. Mongo chưa sẵn sàng lúc startup).
+     */
+    @Scheduled(initialDelayString = "${app.booking.mongo.index-init-delay-ms:30000}",
+            fixedDelayString = "${app.booking.mongo.index-retry-ms:300000}")
+    public void ensureIndexesInBackground() {
+        if (queryPlanCheckEnabled || indexesEnsured) {
+            return; // Đã tạo lúc startup hoặc ở lần chạy trước
+        }
+        try {
+            ensureIndexes();
+        } catch (Exception e) {
+            log.error("Error creating MongoDB indexes: {}", e.getMessage());
+        }
+    }
+
+    private void ensureIndexes() {
+        expireDuplicateActiveLocks();
+
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        List<String> failed = new ArrayList<>();
+        for (Class<?> entityType : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entityType);
+            // Từng index riêng: một index lỗi không làm bỏ qua các index còn lại
+            indexResolver.resolveIndexFor(entityType).forEach(index -> {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (Exception e) {
+                    failed.add(entityType.getSimpleName() + "." + index.getIndexOptions().get("name"));
+                    log.error("Error creating index {} for {}: {}", index.getIndexOptions().get("name"),
+                            entityType.getSimpleName(), e.getMessage());
+                }
+            });
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("MongoDB indexes not created: " + failed);
+        }
+        indexesEnsured = true;
+        log.info("MongoDB indexes ensured for {}", INDEXED_ENTITIES.stream().map(Class::getSimpleName).toList());
+    }
+
+    /**
+     * Unique partial index active_seat_lock_uq không tạo được khi còn nhiều lock ACTIVE cho cùng một ghế
+     * (dữ liệu cũ). Giữ lock hết hạn muộn nhất, các lock còn lại chuyển sang EXPIRED.
+     */
+    private void expireDuplicateActiveLocks() {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("status", LockStatus.ACTIVE.name())),
+                new Document("$sort", new Document("expires_at", -1)),
+                new Document("$group", new Document("_id", new Document("flight_id", "$flight_id")
+                        .append("seat_number", "$seat_number"))
+                        .append("ids", new Document("$push", "$_id"))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$match", new Document("count", new Document("$gt", 1))));
+
+        List<Object> duplicateIds = new ArrayList<>();
+        for (Document group : mongoTemplate.getCollection("seat_locks").aggregate(pipeline).allowDiskUse(true)) {
+            List<?> ids = group.getList("ids", Object.class);
+            duplicateIds.addAll(ids.subList(1, ids.size()));
+        }
+        if (duplicateIds.isEmpty()) {
+            return;
+        }
+        long expired = mongoTemplate.getCollection("seat_locks").updateMany(
+                new Document("_id", new Document("$in", duplicateIds)).append("status", LockStatus.ACTIVE.name()),
+                new Document("$set", new Document("status", LockStatus.EXPIRED.name()))).getModifiedCount();
+        log.warn("Expired {} duplicate ACTIVE seat locks before creating active_seat_lock_uq", expired);
+    }
+
+    /**
+     * Explain (queryPlanner) các filter tương ứng với query trong các repository.
+     * Giá trị tham số không quan trọng, chỉ cần đúng hình dạng query.
+     */
+    private List<String> findCollectionScans() {
+        Date from = new Date();
+        Date to = new Date(from.getTime() + 86_400_000L);
+        List<String> collectionScans = new ArrayList<>();
+
+        // FlightRepository
+        checkPlan(collectionScans, "flights", "findByFlightNumber", "{ flight_number: 'VN123' }", null);
+        checkPlan(collectionScans, "flights", "findByAirlineCode", "{ airline_code: 'VN' }", null);
+        checkPlan(collectionScans, "flights", "findFlightsByRoute", new Document("departure_airport", "SGN")
+                .append("arrival_airport", "HAN")
+                .append("departure_time", new Document("$gte", from).append("$lt", to))
+                .append("status", "SCHEDULED"), null);
+        checkPlan(collectionScans, "flights", "findAvailableFlightsByRoute", new Document("departure_airport", "SGN")
+                .append("arrival_airport", "HAN")
+                .append("departure_time", new Document("$gte", from).append("$lt", to))
+                .append("status", "SCHEDULED")
+                .append("available_seats", new Document("$gte", 1)), "{ base_price: 1 }");
+        checkPlan(collectionScans, "flights", "findAvailableDepartures", new Document("departure_airport", "SGN")
+                .append("departure_time", new Document("$gte", from).append("$lt", to))
+                .append("status", "SCHEDULED")
+                .append("available_seats", new Document("$gte", 1)), null);
+        checkPlan(collectionScans, "flights", "findAvailableArrivals", new Document("arrival_airport", "HAN")
+                .append("departure_time", new Document("$gte", from).append("$lt", to))
+                .append("status", "SCHEDULED")
+                .append("available_seats", new Document("$gte", 1)), null);
+        checkPlan(collectionScans, "flights", "findFlightsByDateRange", new Document("departure_time",
+                new Document("$gte", from).append("$lt", to)).append("status", "SCHEDULED"), null);
+        checkPlan(collectionScans, "flights", "findByStatus", "{ status: 'SCHEDULED' }", null);
+        checkPlan(collectionScans, "flights", "getAllFlights(cursor)", new Document("$or", List.of(
+                new Document("created_at", new Document("$lt", from)),
+                new Document("created_at", from).append("_id", new Document("$lt", "f")),
+                new Document("created_at", null))), "{ created_at: -1, _id: -1 }");
+
+        // SeatLockRepository
+        checkPlan(collectionScans, "seat_locks", "findActiveLockBySeat",
+                "{ flight_id: 'f', seat_number: '1A', status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findActiveLocksBySeats",
+                "{ flight_id: 'f', seat_number: { $in: ['1A', '1B'] }, status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findActiveLocksByFlight", "{ flight_id: 'f', status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findOccupyingLocksByFlight",
+                "{ flight_id: 'f', status: { $in: ['ACTIVE', 'CONFIRMED'] } }", null);
+        checkPlan(collectionScans, "seat_locks", "findActiveLocksByUser", "{ user_id: 1, status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findActiveLocksBySession", "{ session_id: 's', status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findExpiredLocks", new Document("expires_at", new Document("$lt", from))
+                .append("status", "ACTIVE"), null);
+        checkPlan(collectionScans, "seat_locks", "findExpiredLocksBySeats", new Document("flight_id", "f")
+                .append("seat_number", new Document("$in", List.of("1A")))
+                .append("expires_at", new Document("$lte", from))
+                .append("status", "ACTIVE"), null);
+        checkPlan(collectionScans, "seat_locks", "findActiveLocksByFlightAndUser",
+                "{ flight_id: 'f', user_id: 1, status: 'ACTIVE' }", null);
+        checkPlan(collectionScans, "seat_locks", "findByBookingId", "{ booking_id: 'b' }", null);
+
+        // BookingRepository
+        checkPlan(collectionScans, "bookings", "findByBookingReference", "{ booking_reference: 'VN1' }", null);
+        checkPlan(collectionScans, "bookings", "findByUserId", "{ user_id: 1 }", "{ createdAt: -1 }");
+        checkPlan(collectionScans, "bookings", "findUserBookingsAfter", new Document("user_id", 1L)
+                .append("$or", List.of(
+                        new Document("createdAt", new Document("$lt", from)),
+                        new Document("createdAt", from).append("_id", new Document("$lt", "b")),
+                        new Document("createdAt", null))), "{ createdAt: -1, _id: -1 }");
+        checkPlan(collectionScans, "bookings", "findByFlightId", "{ flight_id: 'f' }", null);
+        checkPlan(collectionScans, "bookings", "findByUserIdAndStatus", "{ user_id: 1, booking_status: 'LOCKED' }", null);
+        checkPlan(collectionScans, "bookings", "findByStatus", "{ booking_status: 'LOCKED' }", null);
+        checkPlan(collectionScans, "bookings", "findByPaymentStatus", "{ payment_status: 'PENDING' }", null);
+        checkPlan(collectionScans, "bookings", "findExpiredLocks", new Document("lock_expires_at", new Document("$lt", from))
+                .append("booking_status", "LOCKED"), null);
+        checkPlan(collectionScans, "bookings", "findConflictingBookings",
+                "{ flight_id: 'f', selected_seats: { $in: ['1A'] }, booking_status: { $in: ['LOCKED', 'CONFIRMED'] } }", null);
+        checkPlan(collectionScans, "bookings", "findBookingsByDateRange", new Document("createdAt",
+                new Document("$gte", from).append("$lt", to)), null);
+        checkPlan(collectionScans, "bookings", "findRecentBookingsByUser", new Document("user_id", 1L)
+                .append("createdAt", new Document("$gte", from)), null);
+
+        // OutboxEventRepository
+        checkPlan(collectionScans, "outbox", "findPending", "{ status: 'PENDING' }", "{ sequence: 1 }");
+
+        // FareCalendar
+        checkPlan(collectionScans, "route_day_summaries", "getCalendar", new Document("departure_airport", "SGN")
+                .append("arrival_airport", "HAN")
+                .append("departure_date", new Document("$gte", from).append("$lte", to)), null);
+
+        return collectionScans;
+    }
+
+    private void checkPlan(List<String> collectionScans, String collection, String queryName, String filter, String sort) {
+        checkPlan(collectionScans, collection, queryName, Document.parse(filter), sort);
+    }
+
+    private void checkPlan(List<String> collectionScans, String collection, String queryName, Document filter, String sort) {
+        var find = mongoTemplate.getCollection(collection).find(filter);
+        if (sort != null) {
+            find = find.sort(Document.parse(sort));
+        }
+        Document explain = find.explain(ExplainVerbosity.QUERY_PLANNER);
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        Object winningPlan = queryPlanner != null ? queryPlanner.get("winningPlan") : null;
+
+        if (winningPlan instanceof Document plan && plan.toJson().contains("\"COLLSCAN\"")) {
+            collectionScans.add(collection + "." + queryName);
+            log.error("COLLSCAN for {}.{}: {}", collection, queryName, filter.toJson());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.booking.booking_service.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Transaction manager cho {@link BookingTransactions}: booking và event trong outbox được commit cùng nhau.
+ * Không dùng @Transactional trên service để các thao tác khác (counter ghế, seat lock) không bị kéo vào transaction.
+ * Cần MongoDB chạy replica set (Atlas mặc định là replica set).
+ */
+@Configuration
+public class MongoTransactionConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+}
@@ -0,0 +1,226 @@
+package com.booking.booking_service.config;
+
+import com.booking.booking_service.entity.OutboxEvent;
+import com.booking.booking_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi event trong outbox lên Kafka theo batch.
+ * <p>
+ * Chỉ một instance relay tại một thời điểm (lease trên Redis) để giữ thứ tự. Trong một batch, event của cùng một
+ * booking được gửi nối tiếp nhau (event sau chỉ gửi khi event trước đã được ack), các booking khác nhau gửi song song.
+ * Event gửi lỗi vẫn PENDING cùng các event sau nó của booking đó, và được gửi lại theo đúng thứ tự ở lần poll sau
+ * (at-least-once). Event lỗi quá {@code max-attempts} lần, hoặc không deserialize được, chuyển sang FAILED (dead-letter)
+ * để không chặn mãi các event sau của booking đó.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String LEADER_KEY = "outbox:relay:leader";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer publishLag;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+
+    @Value("${app.booking.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.booking.outbox.linger-ms:20}")
+    private long lingerMs;
+
+    @Value("${app.booking.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.booking.outbox.leader-lease-ms:10000}")
+    private long leaderLeaseMs;
+
+    @Value("${app.booking.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       RedisTemplate<String, Object> redisTemplate,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.publishedCounter = Counter.builder("booking.outbox.published")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("booking.outbox.failed")
+                .description("Outbox event sends that failed and will be retried")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("booking.outbox.dead_lettered")
+                .description("Outbox events moved to FAILED after too many attempts or an unreadable payload")
+                .register(meterRegistry);
+        this.publishLag = Timer.builder("booking.outbox.publish.lag")
+                .description("Time from writing an event to the outbox until Kafka acknowledged it")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events waiting to be published (as seen by the relay leader)")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.lag.ms", oldestPendingAgeMs, AtomicLong::get)
+                .description("Age of the oldest pending outbox event")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.booking.outbox.poll-interval-ms:100}",
+            initialDelayString = "${app.booking.outbox.initial-delay-ms:30000}")
+    public void relay() {
+        try {
+            if (!holdLeadership()) {
+                return;
+            }
+
+            List<OutboxEvent> batch = outboxEventRepository.findPending(PageRequest.of(0, batchSize));
+            updateLagMetrics(batch);
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Batch chưa đầy và event cũ nhất còn mới: chờ thêm để gom batch lớn hơn
+            if (batch.size() < batchSize && oldestPendingAgeMs.get() < lingerMs) {
+                return;
+            }
+
+            publish(batch);
+        } catch (Exception e) {
+            log.error("Error relaying outbox events: {}", e.getMessage());
+        }
+    }
+
+    private void publish(List<OutboxEvent> batch) throws Exception {
+        // Giữ thứ tự sequence trong từng booking
+        Map<String, List<OutboxEvent>> eventsByBooking = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            eventsByBooking.computeIfAbsent(event.getAggregateId(), id -> new ArrayList<>()).add(event);
+        }
+
+        ConcurrentLinkedQueue<OutboxEvent> published = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> chains = new ArrayList<>(eventsByBooking.size());
+        for (List<OutboxEvent> events : eventsByBooking.values()) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (OutboxEvent event : events) {
+                chain = chain.thenCompose(ignored -> send(event)).thenRun(() -> published.add(event));
+            }
+            // Lỗi dừng chain của booking này, các booking khác vẫn tiếp tục
+            chains.add(chain.exceptionally(ex -> null));
+        }
+
+        try {
+            CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } finally {
+            if (!published.isEmpty()) {
+                List<String> ids = published.stream().map(OutboxEvent::getId).toList();
+                LocalDateTime now = LocalDateTime.now();
+                outboxEventRepository.markPublished(ids, now);
+                publishedCounter.increment(ids.size());
+                for (OutboxEvent event : published) {
+                    publishLag.record(Duration.between(event.getCreatedAt(), now));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> send(OutboxEvent event) {
+        Object payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+        } catch (Exception e) {
+            // Payload không đọc được (vd. class không còn tồn tại) thì gửi lại cũng không thành công
+            deadLetter(event, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return kafkaTemplate.send(event.getTopic(), event.getAggregateId(), payload)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        recordFailure(event, ex);
+                    }
+                })
+                .thenApply(result -> null);
+    }
+
+    private void recordFailure(OutboxEvent event, Throwable ex) {
+        int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+        if (attempts >= maxAttempts) {
+            deadLetter(event, ex);
+            return;
+        }
+        failedCounter.increment();
+        log.error("Failed to publish outbox event {} ({}) for booking {} (attempt {}): {}",
+                event.getId(), event.getTopic(), event.getAggregateId(), attempts, ex.getMessage());
+        try {
+            outboxEventRepository.markFailed(event.getId(), String.valueOf(ex.getMessage()));
+        } catch (Exception e) {
+            log.warn("Could not record failure for outbox event {}: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private void deadLetter(OutboxEvent event, Throwable ex) {
+        deadLetteredCounter.increment();
+        log.error("Moving outbox event {} ({}) for booking {} to FAILED: {}",
+                event.getId(), event.getTopic(), event.getAggregateId(), ex.getMessage());
+        try {
+            outboxEventRepository.markDeadLettered(event.getId(), String.valueOf(ex.getMessage()));
+        } catch (Exception e) {
+            log.warn("Could not dead-letter outbox event {}: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private void updateLagMetrics(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            pendingEvents.set(0);
+            oldestPendingAgeMs.set(0);
+            return;
+        }
+        pendingEvents.set(batch.size() < batchSize ? batch.size() : outboxEventRepository.countPending());
+        oldestPendingAgeMs.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis()));
+    }
+
+    private boolean holdLeadership() {
+        Duration lease = Duration.ofMillis(leaderLeaseMs);
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEADER_KEY, instanceId, lease))) {
+            return true;
+        }
+        if (instanceId.equals(redisTemplate.opsForValue().get(LEADER_KEY))) {
+            redisTemplate.expire(LEADER_KEY, lease);
+            return true;
+        }
+        return false;
+    }
+}
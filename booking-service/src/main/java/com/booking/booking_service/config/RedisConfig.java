@@ -1,17 +1,33 @@
 package com.booking.booking_service.config;
 
+import com.booking.booking_service.cache.CacheCodec;
+import com.booking.booking_service.cache.JacksonCacheCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
@@ -21,23 +37,34 @@ public class RedisConfig {
     @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
+    @Value("${app.booking.redis.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MeterRegistry meterRegistry) {
+        // Latency từng lệnh (lettuce.command.completion / lettuce.command.firstresponse) theo loại lệnh
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(meterRegistry, MicrometerOptions.create()))
+                .build();
+    }
+
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        JedisConnectionFactory factory = new JedisConnectionFactory();
-        factory.setHostName(redisHost);
-        factory.setPort(redisPort);
-        factory.setUsePool(true);
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources lettuceClientResources) {
+        // Một kết nối multiplexed dùng chung cho mọi thread: lệnh từ các request được pipeline trên cùng socket,
+        // không còn chờ mượn connection từ pool. Lệnh blocking / transaction / pub-sub vẫn dùng kết nối riêng.
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientResources(lettuceClientResources)
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs))
+                .build();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisHost, redisPort), clientConfiguration);
+        factory.setShareNativeConnection(true);
         return factory;
     }
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        // Tạo ObjectMapper hỗ trợ LocalDateTime
-        ObjectMapper objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule()) // hỗ trợ Java 8 date/time
-                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // serialize dạng ISO-8601
-
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        GenericJackson2JsonRedisSerializer serializer = valueSerializer();
 
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
@@ -53,4 +80,68 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * API reactive trên cùng kết nối multiplexed, cùng serializer với {@code redisTemplate}
+     * (gửi nhiều lệnh độc lập cùng lúc thay vì chờ lần lượt).
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        GenericJackson2JsonRedisSerializer serializer = valueSerializer();
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(serializer)
+                .hashKey(new StringRedisSerializer())
+                .hashValue(serializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveBinaryRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public RedisTemplate<String, byte[]> binaryRedisTemplate(RedisConnectionFactory connectionFactory) {
+        // Value đã được CacheCodec mã hóa sẵn, ghi nguyên byte
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Bean
+    public CacheCodec cacheCodec(@Value("${app.booking.cache.codec:smile}") String codec) {
+        return "json".equalsIgnoreCase(codec) ? JacksonCacheCodec.json() : JacksonCacheCodec.smile();
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        // Dùng cho Redis pub/sub (seat map delta giữa các instance)
+        // Start sau khi app ready (RedisListenerStarter) để app vẫn khởi động được khi Redis chưa sẵn sàng
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    private GenericJackson2JsonRedisSerializer valueSerializer() {
+        // Tạo ObjectMapper hỗ trợ LocalDateTime
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule()) // hỗ trợ Java 8 date/time
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // serialize dạng ISO-8601
+
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+}
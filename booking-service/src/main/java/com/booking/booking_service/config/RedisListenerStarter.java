@@ -0,0 +1,31 @@
+package com.booking.booking_service.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Start Redis pub/sub listener container sau khi app ready (các listener đã đăng ký trong @PostConstruct).
+ * Nếu Redis chưa sẵn sàng, app vẫn chạy: seat inventory vẫn đúng nhờ seat-map version,
+ * near cache vẫn tự hết hạn theo TTL; chỉ mất phần đẩy realtime.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisListenerStarter {
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        try {
+            listenerContainer.start();
+            log.info("Redis pub/sub listeners started");
+        } catch (Exception e) {
+            log.warn("Could not start Redis pub/sub listeners: {}", e.getMessage());
+        }
+    }
+}
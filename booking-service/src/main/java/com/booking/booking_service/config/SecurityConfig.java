@@ -43,9 +43,10 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers("/health/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
-                        .requestMatchers("/flights/search", "/flights/{id}").permitAll()
+                        .requestMatchers("/flights/search", "/flights/search/itineraries", "/flights/fare-calendar", "/flights/{id}").permitAll()
                         .requestMatchers("/flights/{id}/seats").permitAll()
                         .requestMatchers("/test/**").permitAll() // Test endpoints
+                        .requestMatchers("/internal/seat-actor/**").permitAll() // Chuyển tiếp giữa các instance, xác thực bằng token nội bộ
 
                         // Protected endpoints
                         .requestMatchers("/bookings/**").authenticated()
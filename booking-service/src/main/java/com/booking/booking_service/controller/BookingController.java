@@ -3,10 +3,13 @@ package com.booking.booking_service.controller;
 import com.booking.booking_service.dto.request.BookingRequest;
 
 import com.booking.booking_service.dto.respone.BookingResponse;
+import com.booking.booking_service.idempotency.IdempotencyService;
 import com.booking.booking_service.service.BookingService;
 import com.booking.common_library.dto.ApiResponse;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
 import com.booking.common_library.util.SuccessCode;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -33,6 +36,7 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/test-auth")
     @Operation(summary = "Test booking authentication", description = "Test authentication within BookingController")
@@ -51,9 +55,12 @@ public class BookingController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Seats not available")
     })
     public ResponseEntity<ApiResponse<BookingResponse>> createBooking(
+            @Parameter(description = "Client-generated key; retries with the same key return the original result")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody BookingRequest request) {
 
-        BookingResponse booking = bookingService.createBooking(request);
+        BookingResponse booking = idempotencyService.execute("create-booking", idempotencyKey, request,
+                new TypeReference<>() {}, () -> bookingService.createBooking(request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.builderResponse(SuccessCode.CREATED, booking));
     }
@@ -74,6 +81,22 @@ public class BookingController {
         return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, bookings));
     }
 
+    @GetMapping("/my-bookings/scroll")
+    @Operation(summary = "Get user bookings (cursor)", description = "Retrieve current user's bookings with keyset pagination; pass nextCursor to get the next page")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Bookings retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ApiResponse<CursorPageResponse<BookingResponse>>> scrollUserBookings(
+            @Parameter(description = "Continuation token from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Include the total count") @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPageResponse<BookingResponse> bookings = bookingService.getUserBookings(cursor, Math.min(Math.max(size, 1), 100), includeTotal);
+
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, bookings));
+    }
+
     @GetMapping("/booking/{bookingId}")
     @Operation(summary = "Get booking by ID", description = "Retrieve specific booking details")
     @ApiResponses(value = {
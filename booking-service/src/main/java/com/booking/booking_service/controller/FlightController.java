@@ -3,24 +3,38 @@ package com.booking.booking_service.controller;
 import com.booking.booking_service.dto.request.CreateFlightRequest;
 import com.booking.booking_service.dto.request.FlightSearchRequest;
 import com.booking.booking_service.dto.request.UpdateFlightRequest;
+import com.booking.booking_service.dto.respone.FareCalendarDay;
+import com.booking.booking_service.dto.respone.FlightImportResponse;
 import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.dto.respone.ItinerarySearchResponse;
 import com.booking.booking_service.dto.respone.SeatMapResponse;
+import com.booking.booking_service.service.FlightImportService;
 import com.booking.booking_service.service.FlightService;
+import com.booking.booking_service.service.SeatMapStreamService;
 import com.booking.common_library.dto.ApiResponse;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
 import com.booking.common_library.util.SuccessCode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -31,6 +45,8 @@ import java.util.List;
 public class FlightController {
 
     private final FlightService flightService;
+    private final SeatMapStreamService seatMapStreamService;
+    private final FlightImportService flightImportService;
 
     @GetMapping("/flights/search")
     @Operation(summary = "Search flights", description = "Search for available flights based on criteria")
@@ -49,6 +65,37 @@ public class FlightController {
         return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, flights));
     }
 
+    @GetMapping("/flights/search/itineraries")
+    @Operation(summary = "Search itineraries", description = "Search one-way or round-trip itineraries, including 1-stop connections unless directFlightsOnly is set")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Itineraries found successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid search criteria")
+    })
+    public ResponseEntity<ApiResponse<ItinerarySearchResponse>> searchItineraries(
+            @Valid @ModelAttribute FlightSearchRequest request,
+            @Parameter(description = "Maximum itineraries per direction") @RequestParam(defaultValue = "20") int limit) {
+
+        ItinerarySearchResponse itineraries = flightService.searchItineraries(request, Math.min(Math.max(limit, 1), 100));
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, itineraries));
+    }
+
+    @GetMapping("/flights/fare-calendar")
+    @Operation(summary = "Fare calendar", description = "Lowest fare per seat class, flight count and seats left for each day of a route (up to 60 days)")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Fare calendar retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    public ResponseEntity<ApiResponse<List<FareCalendarDay>>> getFareCalendar(
+            @Parameter(description = "Departure airport code") @RequestParam String departureAirport,
+            @Parameter(description = "Arrival airport code") @RequestParam String arrivalAirport,
+            @Parameter(description = "First day (defaults to today)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Number of days") @RequestParam(defaultValue = "30") int days) {
+
+        List<FareCalendarDay> calendar = flightService.getFareCalendar(departureAirport, arrivalAirport, from, days);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, calendar));
+    }
+
     @GetMapping("/flights/{flightId}")
     @Operation(summary = "Get flight details", description = "Retrieve detailed information about a specific flight")
     @ApiResponses(value = {
@@ -66,13 +113,35 @@ public class FlightController {
     @Operation(summary = "Get flight seat map", description = "Retrieve seat map and availability for a specific flight")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Seat map retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Seat map not modified since the given ETag"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Flight not found")
     })
     public ResponseEntity<ApiResponse<SeatMapResponse>> getFlightSeatMap(
-            @Parameter(description = "Flight ID") @PathVariable String flightId) {
+            @Parameter(description = "Flight ID") @PathVariable String flightId,
+            WebRequest webRequest) {
+
+        // Trả về 304 nếu client đã có seat map ở đúng version (If-None-Match)
+        String eTag = flightService.getSeatMapETag(flightId);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
 
         SeatMapResponse seatMap = flightService.getFlightSeatMap(flightId);
-        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, seatMap));
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(ApiResponse.builderResponse(SuccessCode.FETCHED, seatMap));
+    }
+
+    @GetMapping(value = "/flights/{flightId}/seat-map/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream flight seat map", description = "Server-sent events: one seat map snapshot, then seat changes as versioned deltas")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Seat map stream opened"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Flight not found")
+    })
+    public SseEmitter streamFlightSeatMap(
+            @Parameter(description = "Flight ID") @PathVariable String flightId) {
+
+        return seatMapStreamService.subscribe(flightId);
     }
 
     @GetMapping("/flights/{flightId}/check-availability")
@@ -91,6 +160,24 @@ public class FlightController {
 
     // ===== FLIGHT MANAGEMENT CRUD OPERATIONS =====
 
+    @PostMapping(value = "/admin/flights/import", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Bulk import flights",
+            description = "Stream a flight schedule as NDJSON (one CreateFlightRequest per line) or CSV with a header row")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Import finished, see per-row errors"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Admin role required")
+    })
+    public ResponseEntity<ApiResponse<FlightImportResponse>> importFlights(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) throws IOException {
+
+        FlightImportService.Format format = contentType.startsWith("text/csv")
+                ? FlightImportService.Format.CSV
+                : FlightImportService.Format.NDJSON;
+        FlightImportResponse result = flightImportService.importFlights(request.getInputStream(), format);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.CREATED, result));
+    }
+
     @PostMapping("/flights/create")
     @Operation(summary = "Create new flight", description = "Create a new flight with all required information")
     @ApiResponses(value = {
@@ -148,4 +235,18 @@ public class FlightController {
         PageResponse<FlightResponse> flights = flightService.getAllFlights(pageable);
         return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, flights));
     }
+
+    @GetMapping("/flights/all/scroll")
+    @Operation(summary = "Get all flights (cursor)", description = "Retrieve all flights with keyset pagination; pass nextCursor to get the next page")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Flights retrieved successfully")
+    })
+    public ResponseEntity<ApiResponse<CursorPageResponse<FlightResponse>>> scrollAllFlights(
+            @Parameter(description = "Continuation token from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Include an estimated total count") @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPageResponse<FlightResponse> flights = flightService.getAllFlights(cursor, Math.min(Math.max(size, 1), 100), includeTotal);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, flights));
+    }
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package com.booking.booking_service.controller;
 
 import com.booking.booking_service.dto.request.SeatSelectionRequest;
 import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.idempotency.IdempotencyService;
 import com.booking.booking_service.service.BookingService;
 import com.booking.booking_service.service.SeatLockService;
 import com.booking.common_library.dto.ApiResponse;
 import com.booking.common_library.util.SuccessCode;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -27,6 +29,7 @@ public class SeatController {
 
     private final BookingService bookingService;
     private final SeatLockService seatLockService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/seats/select")
     @Operation(summary = "Select seats", description = "Select and lock seats for booking")
@@ -37,9 +40,12 @@ public class SeatController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Seats already locked")
     })
     public ResponseEntity<ApiResponse<List<SeatLock>>> selectSeats(
+            @Parameter(description = "Client-generated key; retries with the same key return the original result")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody SeatSelectionRequest request) {
 
-        List<SeatLock> seatLocks = bookingService.selectSeats(request);
+        List<SeatLock> seatLocks = idempotencyService.execute("select-seats", idempotencyKey, request,
+                new TypeReference<>() {}, () -> bookingService.selectSeats(request));
         return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.UPDATED, seatLocks));
     }
 
@@ -0,0 +1,47 @@
+package com.booking.booking_service.controller;
+
+import com.booking.booking_service.dto.respone.WaitingRoomStatus;
+import com.booking.booking_service.service.BookingService;
+import com.booking.common_library.dto.ApiResponse;
+import com.booking.common_library.util.SuccessCode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Waiting Room", description = "Admission queue for flights under heavy booking load")
+public class WaitingRoomController {
+
+    private final BookingService bookingService;
+
+    @PostMapping("/waiting-room/{flightId}/join")
+    @Operation(summary = "Join waiting room", description = "Get admitted or take a place in the flight's waiting room")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Admitted or queued"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ApiResponse<WaitingRoomStatus>> join(
+            @Parameter(description = "Flight ID") @PathVariable String flightId) {
+
+        WaitingRoomStatus status = bookingService.joinWaitingRoom(flightId);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, status));
+    }
+
+    @GetMapping("/waiting-room/{flightId}")
+    @Operation(summary = "Get waiting room status", description = "Poll position and estimated wait without joining the queue")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Status retrieved"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ApiResponse<WaitingRoomStatus>> status(
+            @Parameter(description = "Flight ID") @PathVariable String flightId) {
+
+        WaitingRoomStatus status = bookingService.getWaitingRoomStatus(flightId);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, status));
+    }
+}
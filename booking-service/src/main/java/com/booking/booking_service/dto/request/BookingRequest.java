@@ -38,4 +38,6 @@ public class BookingRequest {
 
     private String promoCode;
 
+    private String fareQuote; // Quote nhận được lúc tìm kiếm; có thì giữ đúng bậc giá đã báo
+
 }
\ No newline at end of file
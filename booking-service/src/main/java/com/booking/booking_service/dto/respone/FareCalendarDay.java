@@ -0,0 +1,22 @@
+package com.booking.booking_service.dto.respone;
+
+import com.booking.booking_service.utils.SeatClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendarDay {
+    private LocalDate date;
+    private Integer flightCount;
+    private Integer seatsLeft;
+    private Map<SeatClass, BigDecimal> lowestFares;     // Giá thấp nhất cho 1 người lớn theo hạng ghế còn chỗ
+}
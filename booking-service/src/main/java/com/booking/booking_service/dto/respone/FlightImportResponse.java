@@ -0,0 +1,34 @@
+package com.booking.booking_service.dto.respone;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightImportResponse {
+    private long totalRows;
+    private long inserted;
+    private long duplicates;            // flightNumber đã tồn tại (trong DB hoặc trước đó trong file)
+    private long invalid;               // Không parse được hoặc không qua validation
+    private long failed;                // Lỗi khi ghi MongoDB
+    private int affectedRouteDays;
+    private long durationMs;
+    private double rowsPerSecond;
+    private List<RowError> errors;      // Giới hạn số lỗi trả về, xem app.booking.flight-import.max-reported-errors
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String flightNumber;
+        private String message;
+    }
+}
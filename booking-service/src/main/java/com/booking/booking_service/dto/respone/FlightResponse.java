@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class FlightResponse {
@@ -36,6 +36,11 @@ public class FlightResponse {
     private BigDecimal firstPrice;
     private List<SeatClassInfo> seatConfiguration;
     private FlightStatus status;
+    private LocalDateTime updatedAt;
+
+    // Chỉ có trong kết quả tìm kiếm: giá cho hạng ghế + số hành khách đã tìm, kèm quote để đặt vé đúng giá này
+    private BigDecimal totalFare;
+    private String fareQuote;
 
 }
 
@@ -0,0 +1,24 @@
+package com.booking.booking_service.dto.respone;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItineraryResponse {
+    private List<FlightResponse> legs;
+    private Integer stops;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Long totalDurationMinutes;
+    private Long layoverMinutes;
+    private BigDecimal totalPrice;          // Tổng giá các chặng cho toàn bộ hành khách
+}
@@ -0,0 +1,19 @@
+package com.booking.booking_service.dto.respone;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItinerarySearchResponse {
+    private String tripType;
+    private List<ItineraryResponse> outbound;
+    private List<ItineraryResponse> inbound;    // Rỗng với ONE_WAY
+    private boolean partial;                    // true khi một số chặng không lấy kịp trong thời gian cho phép
+}
@@ -0,0 +1,30 @@
+package com.booking.booking_service.dto.respone;
+
+import com.booking.booking_service.utils.SeatChangeType;
+import com.booking.booking_service.utils.SeatStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatMapDelta {
+    private String flightId;
+    private Long version;               // Seat-map version sau thay đổi này
+    private SeatChangeType type;
+    private SeatStatus status;          // Trạng thái mới của các ghế (góc nhìn user khác)
+    private List<String> seatNumbers;
+    private LocalDateTime occurredAt;
+
+    // Chỉ dùng nội bộ giữa các instance, không gửi cho client
+    private Long lockedBy;
+    private LocalDateTime lockExpiresAt;
+}
@@ -15,6 +15,7 @@ import java.util.List;
 public class SeatMapResponse {
     private String flightId;
     private String aircraftType;
+    private Long version;       // Seat-map version, tăng mỗi lần lock/release/confirm
     private List<SeatRow> seatRows;
     private SeatLegend legend;  // Chú thích màu/trạng thái ghế
 }
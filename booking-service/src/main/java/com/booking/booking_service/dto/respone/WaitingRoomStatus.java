@@ -0,0 +1,19 @@
+package com.booking.booking_service.dto.respone;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomStatus {
+    private String flightId;
+    private boolean admitted;           // Được gọi selectSeats / createBooking
+    private boolean queued;
+    private Long position;              // Vị trí trong hàng đợi (1-based), null nếu không xếp hàng
+    private Long ticket;                // Số thứ tự đã cấp
+    private Long estimatedWaitSeconds;
+}
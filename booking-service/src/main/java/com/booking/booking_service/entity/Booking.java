@@ -9,6 +9,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -21,10 +24,21 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "bookings")
+@CompoundIndexes({
+        // findByUserId (offset) và keyset pagination theo (createdAt, _id)
+        @CompoundIndex(name = "user_created_id_idx", def = "{ 'user_id': 1, 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "user_status_idx", def = "{ 'user_id': 1, 'booking_status': 1 }"),
+        // findExpiredLocks (booking expiry sweep)
+        @CompoundIndex(name = "status_lock_expires_idx", def = "{ 'booking_status': 1, 'lock_expires_at': 1 }"),
+        @CompoundIndex(name = "flight_status_idx", def = "{ 'flight_id': 1, 'booking_status': 1 }"),
+        @CompoundIndex(name = "payment_status_idx", def = "{ 'payment_status': 1 }"),
+        @CompoundIndex(name = "created_idx", def = "{ 'createdAt': 1 }")
+})
 public class Booking extends BaseEntity {
     @Id
     private String id;
 
+    @Indexed(unique = true)
     @Field("booking_reference")
     private String bookingReference; // Mã đặt vé duy nhất (thường gửi cho khách)
 
@@ -46,6 +60,12 @@ public class Booking extends BaseEntity {
     @Field("total_amount")
     private BigDecimal totalAmount; // Tổng số tiền cần thanh toán
 
+    @Field("fare_table_version")
+    private Long fareTableVersion; // Version bảng giá dùng để tính totalAmount
+
+    @Field("fare_tier")
+    private Integer fareTier; // Bậc giá (theo load factor) đã áp dụng
+
     @Field("booking_status")
     private BookingStatus bookingStatus; // Trạng thái đặt vé
 
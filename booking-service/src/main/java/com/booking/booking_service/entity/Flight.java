@@ -6,6 +6,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -14,18 +17,29 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document("flights")
+@CompoundIndexes({
+        // findFlightsByRoute / findAvailableFlightsByRoute: equality trước, range (departure_time, available_seats) sau
+        @CompoundIndex(name = "route_status_departure_idx",
+                def = "{ 'departure_airport': 1, 'arrival_airport': 1, 'status': 1, 'departure_time': 1, 'available_seats': 1 }"),
+        // findFlightsByDateRange, findByStatus, build search index
+        @CompoundIndex(name = "status_departure_idx", def = "{ 'status': 1, 'departure_time': 1 }"),
+        // getAllFlights keyset pagination theo (created_at, _id)
+        @CompoundIndex(name = "created_id_idx", def = "{ 'created_at': -1, '_id': -1 }")
+})
 public class Flight {
 
     @Id
     private String id;
 
+    @Indexed(unique = true)
     @Field("flight_number")
     private String flightNumber;
 
+    @Indexed
     @Field("airline_code")
     private String airlineCode;
 
@@ -0,0 +1,66 @@
+package com.booking.booking_service.entity;
+
+import com.booking.booking_service.utils.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event chờ gửi lên Kafka, được ghi cùng transaction với thay đổi của booking.
+ * {@code sequence} là Snowflake ID nên tăng dần theo thời gian ghi; relay đọc PENDING theo thứ tự này.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outbox")
+@CompoundIndexes({
+        // Relay poll: PENDING theo thứ tự ghi
+        @CompoundIndex(name = "status_sequence_idx", def = "{ 'status': 1, 'sequence': 1 }")
+})
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    @Field("sequence")
+    private Long sequence;
+
+    @Field("aggregate_id")
+    private String aggregateId; // bookingId, cũng là Kafka key
+
+    @Field("topic")
+    private String topic;
+
+    @Field("payload_type")
+    private String payloadType; // Class của event, dùng để deserialize lại trước khi gửi
+
+    @Field("payload")
+    private String payload; // Event dạng JSON
+
+    @Field("status")
+    private OutboxStatus status;
+
+    @Field("attempts")
+    private Integer attempts;
+
+    @Field("last_error")
+    private String lastError;
+
+    @Field("created_at")
+    private LocalDateTime createdAt;
+
+    // Event đã gửi tự xóa sau 7 ngày
+    @Indexed(name = "published_ttl_idx", expireAfterSeconds = 604800)
+    @Field("published_at")
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,61 @@
+package com.booking.booking_service.entity;
+
+import com.booking.booking_service.utils.SeatClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Tóm tắt các chuyến SCHEDULED của một route trong một ngày bay (phục vụ lịch giá).
+ * Mỗi flight là một entry được cập nhật riêng khi flight hoặc số ghế trống của nó thay đổi.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("route_day_summaries")
+@CompoundIndex(name = "route_date_idx", def = "{ 'departure_airport': 1, 'arrival_airport': 1, 'departure_date': 1 }")
+public class RouteDaySummary {
+
+    @Id
+    private String id;                                  // SGN:HAN:2026-10-20
+
+    @Field("departure_airport")
+    private String departureAirport;
+
+    @Field("arrival_airport")
+    private String arrivalAirport;
+
+    @Field("departure_date")
+    private LocalDate departureDate;
+
+    @Field("flights")
+    private Map<String, FlightSummary> flights;         // Theo flightId
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FlightSummary {
+        @Field("seats_left")
+        private Integer seatsLeft;
+
+        @Field("seats_left_by_class")
+        private Map<SeatClass, Integer> seatsLeftByClass;
+
+        @Field("fares")
+        private Map<SeatClass, Long> fares;             // Giá hiện tại cho 1 người lớn (minor units), chỉ hạng còn ghế
+
+        @Field("updated_at")
+        private LocalDateTime updatedAt;
+    }
+}
@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -17,6 +19,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "seat_locks")
+@CompoundIndexes({
+        // Mỗi ghế chỉ có tối đa một lock ACTIVE
+        @CompoundIndex(name = "active_seat_lock_uq", def = "{ 'flight_id': 1, 'seat_number': 1 }",
+                unique = true, partialFilter = "{ 'status': 'ACTIVE' }"),
+        @CompoundIndex(name = "flight_status_seat_idx", def = "{ 'flight_id': 1, 'status': 1, 'seat_number': 1 }"),
+        @CompoundIndex(name = "flight_user_status_idx", def = "{ 'flight_id': 1, 'user_id': 1, 'status': 1 }"),
+        @CompoundIndex(name = "user_status_idx", def = "{ 'user_id': 1, 'status': 1 }"),
+        @CompoundIndex(name = "session_status_idx", def = "{ 'session_id': 1, 'status': 1 }"),
+        @CompoundIndex(name = "status_expires_idx", def = "{ 'status': 1, 'expires_at': 1 }"),
+        @CompoundIndex(name = "booking_idx", def = "{ 'booking_id': 1 }")
+})
 public class SeatLock extends BaseEntity {
 
     @Id
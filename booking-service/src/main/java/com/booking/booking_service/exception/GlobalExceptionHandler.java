@@ -1,7 +1,9 @@
 package com.booking.booking_service.exception;
 
+import com.booking.booking_service.waitingroom.WaitingRoomException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -38,6 +40,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    @ExceptionHandler(WaitingRoomException.class)
+    public ResponseEntity<Map<String, Object>> handleWaitingRoomException(WaitingRoomException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("statusCode", HttpStatus.TOO_MANY_REQUESTS.value());
+        response.put("message", ex.getMessage());
+        response.put("data", ex.getStatus());
+
+        Long retryAfter = ex.getStatus().getEstimatedWaitSeconds();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter != null ? Math.max(1, retryAfter) : 1))
+                .body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
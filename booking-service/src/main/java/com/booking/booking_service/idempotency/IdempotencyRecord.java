@@ -0,0 +1,20 @@
+package com.booking.booking_service.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trạng thái của một Idempotency-Key lưu trên Redis.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    private boolean completed;
+    private String fingerprint;     // SHA-256 của request body, phát hiện key bị dùng lại cho request khác
+    private String response;        // JSON của kết quả, chỉ có khi completed
+    private String owner;           // Claim của request đang chạy (chỉ khi chưa completed), dùng khi gia hạn TTL
+}
@@ -0,0 +1,280 @@
+package com.booking.booking_service.idempotency;
+
+import com.booking.common_library.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Xử lý header Idempotency-Key cho các API tạo dữ liệu (create-booking, chọn ghế).
+ * <p>
+ * Request đầu tiên giữ key trên Redis (SET NX, trạng thái in-flight) rồi chạy; kết quả được lưu lại với TTL
+ * và các lần retry cùng key chỉ tốn một lần đọc Redis. Request trùng đến khi lần đầu chưa xong sẽ chờ kết quả:
+ * cùng instance thì chờ trên future trong bộ nhớ, khác instance thì poll Redis. Lỗi không được cache: key bị xoá
+ * để client retry được. Redis lỗi thì request vẫn chạy bình thường (không idempotent) thay vì từ chối.
+ * <p>
+ * Record được lưu dạng chuỗi JSON. Claim in-flight có TTL ngắn và được gia hạn định kỳ trong lúc action còn chạy,
+ * nên request chậm không bị request trùng chạy lần thứ hai khi claim hết hạn giữa chừng.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    // Gia hạn claim chỉ khi claim vẫn là của request này (record đã completed không còn owner)
+    private static final DefaultRedisScript<Long> RENEW_CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local value = redis.call('GET', KEYS[1]) "
+                    + "if value and string.find(value, ARGV[1], 1, true) then "
+                    + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService claimRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-claim-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Request đang chạy trên instance này, theo Redis key
+    private final ConcurrentHashMap<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+    private final long ttlHours;
+    private final long inFlightTimeoutMs;
+    private final long pollIntervalMs;
+
+    public IdempotencyService(StringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.booking.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.booking.idempotency.in-flight-timeout-ms:15000}") long inFlightTimeoutMs,
+                              @Value("${app.booking.idempotency.poll-interval-ms:50}") long pollIntervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlHours = ttlHours;
+        this.inFlightTimeoutMs = inFlightTimeoutMs;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * Chạy {@code action} đúng một lần cho mỗi (user, operation, idempotencyKey).
+     * Không có key thì chạy thẳng như trước.
+     */
+    public <T> T execute(String operation, String idempotencyKey, Object request,
+                         TypeReference<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters",
+                    "IDEMPOTENCY_KEY_INVALID");
+        }
+
+        String redisKey = KEY_PREFIX + operation + ":" + currentUser() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        CompletableFuture<String> ownFuture = new CompletableFuture<>();
+        InFlightRequest own = new InFlightRequest(fingerprint, ownFuture);
+        InFlightRequest running = inFlight.putIfAbsent(redisKey, own);
+        if (running != null) {
+            // Request trùng đang chạy trên chính instance này
+            checkFingerprint(fingerprint, running.fingerprint());
+            return read(awaitLocal(running.response()), responseType);
+        }
+
+        try {
+            String owner = UUID.randomUUID().toString();
+            Boolean acquired;
+            try {
+                acquired = redisTemplate.opsForValue().setIfAbsent(redisKey,
+                        write(IdempotencyRecord.builder().completed(false).fingerprint(fingerprint).owner(owner).build()),
+                        Duration.ofMillis(inFlightTimeoutMs));
+            } catch (Exception e) {
+                log.warn("Idempotency store unavailable, executing {} without idempotency: {}", operation, e.getMessage());
+                T result = action.get();
+                ownFuture.complete(write(result));
+                return result;
+            }
+
+            if (!Boolean.TRUE.equals(acquired)) {
+                String response = awaitStored(redisKey, fingerprint);
+                ownFuture.complete(response);
+                return read(response, responseType);
+            }
+
+            T result;
+            ScheduledFuture<?> renewal = scheduleClaimRenewal(redisKey, owner);
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                renewal.cancel(false);
+                safeDelete(redisKey);
+                throw e;
+            }
+            renewal.cancel(false);
+
+            String response = write(result);
+            try {
+                redisTemplate.opsForValue().set(redisKey,
+                        write(IdempotencyRecord.builder().completed(true).fingerprint(fingerprint).response(response).build()),
+                        Duration.ofHours(ttlHours));
+            } catch (Exception e) {
+                log.warn("Could not store idempotent response for {}: {}", redisKey, e.getMessage());
+            }
+            ownFuture.complete(response);
+            return result;
+        } catch (RuntimeException e) {
+            ownFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(redisKey, own);
+        }
+    }
+
+    /**
+     * Key đã có trên Redis: trả kết quả đã lưu, hoặc poll tới khi request đang chạy (ở instance khác) xong.
+     */
+    private String awaitStored(String redisKey, String fingerprint) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(inFlightTimeoutMs);
+        while (true) {
+            String value = redisTemplate.opsForValue().get(redisKey);
+            if (value != null) {
+                IdempotencyRecord record = read(value, IdempotencyRecord.class);
+                checkFingerprint(fingerprint, record.getFingerprint());
+                if (record.isCompleted()) {
+                    return record.getResponse();
+                }
+            } else {
+                // Lần chạy đầu đã lỗi (key bị xoá) hoặc hết hạn
+                throw new BusinessException("The original request with this Idempotency-Key did not complete, please retry",
+                        "IDEMPOTENCY_RETRY");
+            }
+
+            if (System.nanoTime() >= deadline) {
+                throw new BusinessException("A request with this Idempotency-Key is still being processed",
+                        "IDEMPOTENCY_IN_PROGRESS");
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("Interrupted while waiting for idempotent request", e);
+            }
+        }
+    }
+
+    /**
+     * Gia hạn claim in-flight mỗi 1/3 TTL cho tới khi action xong.
+     */
+    private ScheduledFuture<?> scheduleClaimRenewal(String redisKey, String owner) {
+        long periodMs = Math.max(1, inFlightTimeoutMs / 3);
+        String ownerMarker = "\"owner\":\"" + owner + "\"";
+        return claimRenewer.scheduleAtFixedRate(() -> {
+            try {
+                redisTemplate.execute(RENEW_CLAIM_SCRIPT, List.of(redisKey), ownerMarker, String.valueOf(inFlightTimeoutMs));
+            } catch (Exception e) {
+                log.warn("Could not renew idempotency claim {}: {}", redisKey, e.getMessage());
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private String awaitLocal(CompletableFuture<String> future) {
+        try {
+            return future.get(inFlightTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("Idempotent request failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new BusinessException("A request with this Idempotency-Key is still being processed",
+                    "IDEMPOTENCY_IN_PROGRESS");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    private void checkFingerprint(String fingerprint, String storedFingerprint) {
+        if (!fingerprint.equals(storedFingerprint)) {
+            throw new BusinessException("Idempotency-Key was already used for a different request",
+                    "IDEMPOTENCY_KEY_MISMATCH");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint idempotent request", e);
+        }
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private <T> T read(String response, TypeReference<T> responseType) {
+        try {
+            return objectMapper.readValue(response.getBytes(StandardCharsets.UTF_8), responseType);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot deserialize idempotent response", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot deserialize idempotency record", e);
+        }
+    }
+
+    private void safeDelete(String redisKey) {
+        try {
+            redisTemplate.delete(redisKey);
+        } catch (Exception e) {
+            log.warn("Could not release idempotency key {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonymous";
+    }
+
+    private record InFlightRequest(String fingerprint, CompletableFuture<String> response) {
+    }
+}
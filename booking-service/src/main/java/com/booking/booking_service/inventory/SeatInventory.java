@@ -0,0 +1,247 @@
+package com.booking.booking_service.inventory;
+
+import com.booking.booking_service.utils.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trạng thái ghế của một chuyến bay dưới dạng bitset (sold / locked / blocked).
+ * Mọi thao tác nhiều ghế đều chạy trong cùng một monitor nên được áp dụng nguyên khối.
+ * <p>
+ * {@code version} là seat-map version dùng chung giữa các instance (lưu trên Redis); inventory chỉ
+ * nhận delta khi nó đang ở đúng version liền trước, nếu không sẽ bị đánh dấu stale và load lại.
+ * Lock hết hạn được dọn lazily trong lần đọc đầu tiên sau thời điểm hết hạn.
+ */
+public class SeatInventory {
+
+    private static final long STALE = -1L;
+
+    private final String flightId;
+    private final SeatLayout layout;
+    private final long loadedAt;
+
+    private final long[] sold;
+    private final long[] locked;
+    private final long[] blocked;
+    private final long[] lockOwner;
+    private final long[] lockExpiresAt;
+
+    private long version;
+    private long nextLockExpiry = Long.MAX_VALUE;
+    private long lastExpiredAt;
+
+    public SeatInventory(String flightId, SeatLayout layout, long version, long loadedAt) {
+        this.flightId = flightId;
+        this.layout = layout;
+        this.version = version;
+        this.loadedAt = loadedAt;
+        int words = (layout.size() + 63) >>> 6;
+        this.sold = new long[words];
+        this.locked = new long[words];
+        this.blocked = new long[words];
+        this.lockOwner = new long[layout.size()];
+        this.lockExpiresAt = new long[layout.size()];
+    }
+
+    public String getFlightId() {
+        return flightId;
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    public boolean isOlderThan(long now, long maxAgeMillis) {
+        return now - loadedAt > maxAgeMillis;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized boolean isAt(long expectedVersion) {
+        return version != STALE && version == expectedVersion;
+    }
+
+    /**
+     * Tag thay đổi mỗi khi seat map thay đổi: version toàn cục + mốc lock hết hạn gần nhất đã dọn.
+     */
+    public synchronized String stateTag(long now) {
+        expireLocks(now);
+        return version + "." + lastExpiredAt;
+    }
+
+    /**
+     * Ghế còn trống khi tồn tại, chưa bán, không bị chặn và không bị lock bởi user khác.
+     */
+    public synchronized boolean isAvailable(List<String> seatNumbers, Long viewerId, long now) {
+        expireLocks(now);
+        for (String seatNumber : seatNumbers) {
+            int index = layout.indexOf(seatNumber);
+            if (index < 0 || get(sold, index) || get(blocked, index)) {
+                return false;
+            }
+            if (get(locked, index) && (viewerId == null || lockOwner[index] != viewerId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void markLocked(List<String> seatNumbers, long ownerId, long expiresAt, long newVersion) {
+        for (String seatNumber : seatNumbers) {
+            int index = layout.indexOf(seatNumber);
+            if (index >= 0) {
+                set(locked, index);
+                lockOwner[index] = ownerId;
+                lockExpiresAt[index] = expiresAt;
+                nextLockExpiry = Math.min(nextLockExpiry, expiresAt);
+            }
+        }
+        advanceTo(newVersion);
+    }
+
+    public synchronized void markReleased(List<String> seatNumbers, long newVersion) {
+        for (String seatNumber : seatNumbers) {
+            int index = layout.indexOf(seatNumber);
+            if (index >= 0) {
+                clearLock(index);
+            }
+        }
+        advanceTo(newVersion);
+    }
+
+    public synchronized void markSold(List<String> seatNumbers, long newVersion) {
+        for (String seatNumber : seatNumbers) {
+            int index = layout.indexOf(seatNumber);
+            if (index >= 0) {
+                clearLock(index);
+                set(sold, index);
+            }
+        }
+        advanceTo(newVersion);
+    }
+
+    public synchronized void markBlocked(List<String> seatNumbers, boolean isBlocked, long newVersion) {
+        for (String seatNumber : seatNumbers) {
+            int index = layout.indexOf(seatNumber);
+            if (index >= 0) {
+                if (isBlocked) {
+                    set(blocked, index);
+                } else {
+                    clear(blocked, index);
+                }
+            }
+        }
+        advanceTo(newVersion);
+    }
+
+    // ===== Load từ MongoDB (không thay đổi version) =====
+
+    public synchronized void loadLocked(String seatNumber, long ownerId, long expiresAt, long now) {
+        int index = layout.indexOf(seatNumber);
+        if (index < 0) {
+            return;
+        }
+        if (expiresAt <= now) {
+            // Ghi nhận lock đã hết hạn để stateTag giống với instance đã tự dọn lock đó
+            lastExpiredAt = Math.max(lastExpiredAt, expiresAt);
+            return;
+        }
+        set(locked, index);
+        lockOwner[index] = ownerId;
+        lockExpiresAt[index] = expiresAt;
+        nextLockExpiry = Math.min(nextLockExpiry, expiresAt);
+    }
+
+    public synchronized void loadSold(String seatNumber) {
+        int index = layout.indexOf(seatNumber);
+        if (index >= 0) {
+            set(sold, index);
+        }
+    }
+
+    /**
+     * Trạng thái toàn bộ ghế theo thứ tự index của layout, đọc trong một lần giữ monitor.
+     */
+    public synchronized SeatStatus[] statuses(Long viewerId, long now) {
+        expireLocks(now);
+        SeatStatus[] statuses = new SeatStatus[layout.size()];
+        for (int index = 0; index < statuses.length; index++) {
+            statuses[index] = statusAt(index, viewerId);
+        }
+        return statuses;
+    }
+
+    /**
+     * Index các ghế đang bị lock bởi user, dùng để overlay trạng thái SELECTED lên seat map chung.
+     */
+    public synchronized List<Integer> seatsLockedBy(Long userId, long now) {
+        expireLocks(now);
+        List<Integer> indexes = new ArrayList<>();
+        if (userId == null) {
+            return indexes;
+        }
+        for (int index = 0; index < lockOwner.length; index++) {
+            if (get(locked, index) && lockOwner[index] == userId) {
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+
+    private SeatStatus statusAt(int index, Long viewerId) {
+        if (get(blocked, index)) {
+            return SeatStatus.UNAVAILABLE;
+        }
+        if (get(sold, index)) {
+            return SeatStatus.OCCUPIED;
+        }
+        if (get(locked, index)) {
+            return viewerId != null && lockOwner[index] == viewerId ? SeatStatus.SELECTED : SeatStatus.LOCKED;
+        }
+        return SeatStatus.AVAILABLE;
+    }
+
+    private void advanceTo(long newVersion) {
+        version = version != STALE && newVersion == version + 1 ? newVersion : STALE;
+    }
+
+    private void expireLocks(long now) {
+        if (now < nextLockExpiry) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (int index = 0; index < lockExpiresAt.length; index++) {
+            if (!get(locked, index)) {
+                continue;
+            }
+            if (lockExpiresAt[index] <= now) {
+                lastExpiredAt = Math.max(lastExpiredAt, lockExpiresAt[index]);
+                clearLock(index);
+            } else {
+                next = Math.min(next, lockExpiresAt[index]);
+            }
+        }
+        nextLockExpiry = next;
+    }
+
+    private void clearLock(int index) {
+        clear(locked, index);
+        lockOwner[index] = 0L;
+        lockExpiresAt[index] = 0L;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,90 @@
+package com.booking.booking_service.inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cách đánh số ghế cho cabin 6 ghế/hàng (hàng 1..N, ghế A-F).
+ * Map seatNumber -> index được tính sẵn một lần và dùng chung cho mọi chuyến bay cùng số hàng.
+ */
+public final class SeatLayout {
+
+    public static final int SEATS_PER_ROW = 6;
+    public static final int BUSINESS_ROWS = 5;
+
+    private static final Map<Integer, SeatLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private final int rows;
+    private final String[] seatNumbers;
+    private final Map<String, Integer> indexBySeat;
+
+    private SeatLayout(int rows) {
+        this.rows = rows;
+        this.seatNumbers = new String[rows * SEATS_PER_ROW];
+        this.indexBySeat = new HashMap<>(seatNumbers.length * 2);
+        for (int row = 1; row <= rows; row++) {
+            for (char seatLetter = 'A'; seatLetter <= 'F'; seatLetter++) {
+                int index = (row - 1) * SEATS_PER_ROW + (seatLetter - 'A');
+                String seatNumber = row + String.valueOf(seatLetter);
+                seatNumbers[index] = seatNumber;
+                indexBySeat.put(seatNumber, index);
+            }
+        }
+    }
+
+    public static SeatLayout forTotalSeats(int totalSeats) {
+        return LAYOUTS.computeIfAbsent(totalSeats / SEATS_PER_ROW, SeatLayout::new);
+    }
+
+    /**
+     * @return index của ghế, hoặc -1 nếu ghế không tồn tại trên máy bay
+     */
+    public int indexOf(String seatNumber) {
+        Integer index = seatNumber != null ? indexBySeat.get(seatNumber) : null;
+        return index != null ? index : -1;
+    }
+
+    public String seatNumberAt(int index) {
+        return seatNumbers[index];
+    }
+
+    public int size() {
+        return seatNumbers.length;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return số hàng của ghế (vd "12A" -> 12), hoặc -1 nếu seatNumber không hợp lệ
+     */
+    public static int rowOf(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() < 2 || !Character.isLetter(seatNumber.charAt(seatNumber.length() - 1))) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(seatNumber.substring(0, seatNumber.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static int rowOf(int index) {
+        return index / SEATS_PER_ROW + 1;
+    }
+
+    public static char letterOf(int index) {
+        return (char) ('A' + index % SEATS_PER_ROW);
+    }
+
+    public static String seatClassOf(int row) {
+        return row <= BUSINESS_ROWS ? "BUSINESS" : "ECONOMY";
+    }
+
+    public static String seatTypeOf(char seatLetter) {
+        return (seatLetter == 'A' || seatLetter == 'F') ? "WINDOW" :
+                (seatLetter == 'C' || seatLetter == 'D') ? "AISLE" : "MIDDLE";
+    }
+}
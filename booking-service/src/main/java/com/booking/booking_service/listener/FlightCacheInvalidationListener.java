@@ -0,0 +1,62 @@
+package com.booking.booking_service.listener;
+
+import com.booking.booking_service.cache.FlightNearCache;
+import com.booking.booking_service.cache.FlightSeatCounters;
+import com.booking.booking_service.search.FlightSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Xóa flight khỏi near cache và cập nhật search index khi flight thay đổi (trên bất kỳ instance nào).
+ * Khi chỉ số ghế trống thay đổi thì counter mới được áp dụng tại chỗ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FlightCacheInvalidationListener implements MessageListener {
+    private final RedisMessageListenerContainer listenerContainer;
+    private final FlightNearCache flightNearCache;
+    private final FlightSearchIndex flightSearchIndex;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(FlightNearCache.INVALIDATION_CHANNEL));
+        listenerContainer.addMessageListener(this, new ChannelTopic(FlightNearCache.SEAT_COUNTERS_CHANNEL));
+        listenerContainer.addMessageListener(this, new ChannelTopic(FlightSearchIndex.REBUILD_CHANNEL));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            if (FlightSearchIndex.REBUILD_CHANNEL.equals(channel)) {
+                // Build lại ngoài thread của listener container
+                Thread.ofVirtual().name("flight-index-rebuild").start(flightSearchIndex::rebuild);
+                return;
+            }
+            if (FlightNearCache.SEAT_COUNTERS_CHANNEL.equals(channel)) {
+                // Chỉ số ghế thay đổi: áp dụng tại chỗ, không evict và không đọc lại MongoDB
+                FlightSeatCounters counters = objectMapper.readValue(message.getBody(), FlightSeatCounters.class);
+                flightNearCache.applySeatCounters(counters);
+                flightSearchIndex.applySeatCounters(counters);
+                return;
+            }
+            String flightId = objectMapper.readValue(message.getBody(), String.class);
+            flightNearCache.evictLocal(flightId);
+            // Flight hoặc số ghế trống đã thay đổi: đọc lại bản mới nhất vào search index
+            flightSearchIndex.refresh(flightId);
+        } catch (Exception e) {
+            log.error("Error processing flight cache invalidation", e);
+        }
+    }
+}
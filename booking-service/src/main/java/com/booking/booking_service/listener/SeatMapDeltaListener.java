@@ -0,0 +1,55 @@
+package com.booking.booking_service.listener;
+
+import com.booking.booking_service.cache.CacheCodec;
+import com.booking.booking_service.cache.CachedType;
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import com.booking.booking_service.service.SeatInventoryService;
+import com.booking.booking_service.service.SeatMapStreamService;
+import com.booking.booking_service.service.Impl.SeatInventoryServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nhận seat map delta từ Redis pub/sub (của mọi instance, kể cả chính nó),
+ * cập nhật inventory local và đẩy tiếp tới các SSE client đang xem chuyến bay.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatMapDeltaListener implements MessageListener {
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatMapStreamService seatMapStreamService;
+    private final CacheCodec cacheCodec;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this,
+                new PatternTopic(SeatInventoryServiceImpl.SEAT_MAP_DELTA_CHANNEL_PREFIX + "*"));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SeatMapDelta delta = cacheCodec.decode(CachedType.SEAT_MAP_DELTA, message.getBody());
+            if (delta == null) {
+                // Delta JSON từ instance chưa nâng cấp (rolling deploy)
+                delta = objectMapper.readValue(message.getBody(), SeatMapDelta.class);
+            }
+
+            seatInventoryService.applyDelta(delta);
+            seatMapStreamService.broadcast(delta);
+
+        } catch (Exception e) {
+            log.error("Error processing seat map delta from channel: {}", new String(message.getChannel()), e);
+        }
+    }
+}
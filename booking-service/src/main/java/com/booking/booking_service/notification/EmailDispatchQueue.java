@@ -0,0 +1,176 @@
+package com.booking.booking_service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hàng đợi gửi email (bounded) với executor riêng, để booking không phải chờ auth-service.
+ * <p>
+ * Email được đưa vào hàng đợi sau khi transaction commit (nếu đang trong transaction), nên booking bị rollback
+ * sẽ không gửi email. Gửi lỗi được retry với backoff tăng dần; hàng đợi đầy thì email bị bỏ (đếm qua metric)
+ * thay vì chặn luồng booking.
+ */
+@Component
+@Slf4j
+public class EmailDispatchQueue {
+
+    private final RestTemplate restTemplate;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Counter droppedCounter;
+    private final Timer deliveryTimer;
+
+    @Value("${services.auth-service.url:http://localhost:8081}")
+    private String authServiceUrl;
+
+    @Value("${app.booking.email.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${app.booking.email.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    public EmailDispatchQueue(RestTemplate restTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.booking.email.workers:2}") int workerCount,
+                              @Value("${app.booking.email.queue-capacity:1000}") int queueCapacity) {
+        this.restTemplate = restTemplate;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("email-dispatch-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("email-retry-"));
+
+        this.sentCounter = Counter.builder("booking.email.sent")
+                .description("Emails handed off to the email service")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("booking.email.failed")
+                .description("Emails given up on after all retries")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("booking.email.retried")
+                .description("Email send attempts scheduled for retry")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("booking.email.dropped")
+                .description("Emails dropped because the dispatch queue was full")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("booking.email.delivery")
+                .description("Time spent calling the email service")
+                .register(meterRegistry);
+        Gauge.builder("booking.email.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Emails waiting in the dispatch queue")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đưa email vào hàng đợi; không bao giờ block hay throw về phía caller.
+     */
+    public void submit(String endpoint, Map<String, String> emailData, String bookingReference) {
+        EmailTask task = new EmailTask(endpoint, new HashMap<>(emailData), bookingReference);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(task, 0);
+                }
+            });
+        } else {
+            enqueue(task, 0);
+        }
+    }
+
+    private void enqueue(EmailTask task, int attempt) {
+        try {
+            workers.execute(() -> deliver(task, attempt));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+            log.warn("Email dispatch queue full, dropping {} email for booking: {}",
+                    task.endpoint(), task.bookingReference());
+        }
+    }
+
+    private void deliver(EmailTask task, int attempt) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, String>> request = new HttpEntity<>(task.emailData(), headers);
+
+            deliveryTimer.record(() ->
+                    restTemplate.exchange(authServiceUrl + task.endpoint(), HttpMethod.POST, request, String.class));
+
+            sentCounter.increment();
+            log.debug("Email service called successfully at endpoint: {} for booking: {}",
+                    task.endpoint(), task.bookingReference());
+        } catch (Exception e) {
+            if (attempt >= maxRetries) {
+                failedCounter.increment();
+                log.error("Giving up on {} email for booking: {} after {} attempts: {}",
+                        task.endpoint(), task.bookingReference(), attempt + 1, e.getMessage());
+                return;
+            }
+            retriedCounter.increment();
+            long delay = retryBackoffMs << attempt;
+            log.warn("Failed to call email service at endpoint: {} for booking: {}, retrying in {} ms: {}",
+                    task.endpoint(), task.bookingReference(), delay, e.getMessage());
+            try {
+                retryScheduler.schedule(() -> enqueue(task, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Email dispatch queue shut down with {} pending emails", workers.getQueue().size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record EmailTask(String endpoint, Map<String, String> emailData, String bookingReference) {
+    }
+}
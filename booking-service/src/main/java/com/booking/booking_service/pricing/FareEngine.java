@@ -0,0 +1,295 @@
+package com.booking.booking_service.pricing;
+
+import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.SeatClassInfo;
+import com.booking.booking_service.entity.SeatConfiguration;
+import com.booking.booking_service.utils.SeatClass;
+import com.booking.common_library.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Tính giá vé qua {@link FareTable} dựng sẵn cho từng chuyến bay.
+ * <p>
+ * Bảng giá chỉ được dựng lại khi dữ liệu giá của chuyến bay (hoặc cấu hình bậc giá) thay đổi, nhận biết qua version;
+ * tìm kiếm và đặt vé chỉ chọn bậc giá theo số ghế còn trống rồi tra mảng.
+ * <p>
+ * Quote trả về lúc tìm kiếm có dạng {@code version.seatClass.tier.quotedAt.signature}: khi đặt vé, nếu version
+ * của bảng giá chưa đổi và quote còn hạn thì dùng đúng bậc giá trong quote, không chọn lại theo tải hiện tại.
+ */
+@Slf4j
+@Component
+public class FareEngine {
+
+    private static final SeatClass[] SEAT_CLASSES = SeatClass.values();
+    private static final PassengerType[] PASSENGER_TYPES = PassengerType.values();
+    private static final long FULL_MULTIPLIER_BPS = 10_000L;
+
+    @Value("${app.booking.fare.currency:VND}")
+    private String currency;
+
+    @Value("${app.booking.fare.tier-load-factor-bps:0,5000,7000,8500,9500}")
+    private int[] tierLoadFactorBps;
+
+    @Value("${app.booking.fare.tier-multiplier-bps:10000,11000,12500,15000,18000}")
+    private int[] tierMultiplierBps;
+
+    @Value("${app.booking.fare.child-multiplier-bps:7500}")
+    private int childMultiplierBps;
+
+    @Value("${app.booking.fare.infant-multiplier-bps:1000}")
+    private int infantMultiplierBps;
+
+    @Value("${app.booking.fare.quote-ttl-minutes:30}")
+    private long quoteTtlMinutes;
+
+    @Value("${app.booking.fare.quote-secret:${jwt.secret}}")
+    private String quoteSecret;
+
+    @Value("${app.booking.fare.table-cache-size:20000}")
+    private long tableCacheSize;
+
+    private int fractionDigits;
+    private long[] passengerMultiplierBps;
+    private Cache<String, FareTable> tables;
+    private ThreadLocal<Mac> quoteMac;
+
+    @PostConstruct
+    public void init() {
+        if (tierLoadFactorBps.length == 0 || tierLoadFactorBps.length != tierMultiplierBps.length || tierLoadFactorBps[0] != 0) {
+            throw new IllegalStateException("Fare tiers must start at load factor 0 and have one multiplier per tier");
+        }
+        fractionDigits = Math.max(0, Currency.getInstance(currency).getDefaultFractionDigits());
+
+        passengerMultiplierBps = new long[PASSENGER_TYPES.length];
+        passengerMultiplierBps[PassengerType.ADULT.ordinal()] = FULL_MULTIPLIER_BPS;
+        passengerMultiplierBps[PassengerType.CHILD.ordinal()] = childMultiplierBps;
+        passengerMultiplierBps[PassengerType.INFANT.ordinal()] = infantMultiplierBps;
+
+        tables = Caffeine.newBuilder().maximumSize(tableCacheSize).build();
+
+        SecretKeySpec key = new SecretKeySpec(quoteSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        quoteMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    // ===== Bảng giá =====
+
+    public FareTable tableFor(Flight flight) {
+        long[] classFares = new long[SEAT_CLASSES.length];
+        int[] classTotalSeats = new int[SEAT_CLASSES.length];
+        for (SeatClass seatClass : SEAT_CLASSES) {
+            SeatConfiguration config = findConfig(flight.getSeatConfiguration(), seatClass);
+            BigDecimal price = config != null && config.getPrice() != null
+                    ? config.getPrice()
+                    : legacyPrice(seatClass, flight.getBasePrice(), flight.getBusinessPrice(), flight.getFirstPrice());
+            classFares[seatClass.ordinal()] = toMinor(price);
+            classTotalSeats[seatClass.ordinal()] = seatsOrZero(config != null ? config.getTotalSeats() : flight.getTotalSeats());
+        }
+        return tableFor(flight.getId(), classFares, classTotalSeats);
+    }
+
+    public FareTable tableFor(FlightResponse flight) {
+        long[] classFares = new long[SEAT_CLASSES.length];
+        int[] classTotalSeats = new int[SEAT_CLASSES.length];
+        for (SeatClass seatClass : SEAT_CLASSES) {
+            SeatClassInfo info = findInfo(flight.getSeatConfiguration(), seatClass);
+            BigDecimal price = info != null && info.getPrice() != null
+                    ? info.getPrice()
+                    : legacyPrice(seatClass, flight.getBasePrice(), flight.getBusinessPrice(), flight.getFirstPrice());
+            classFares[seatClass.ordinal()] = toMinor(price);
+            classTotalSeats[seatClass.ordinal()] = seatsOrZero(info != null ? info.getTotalSeats() : flight.getTotalSeats());
+        }
+        return tableFor(flight.getId(), classFares, classTotalSeats);
+    }
+
+    /**
+     * Số ghế còn trống dùng để chọn bậc giá: counter của hạng ghế nếu có cấu hình, ngược lại là counter tổng.
+     */
+    public Integer availableSeats(Flight flight, SeatClass seatClass) {
+        SeatConfiguration config = findConfig(flight.getSeatConfiguration(), seatClass);
+        return config != null ? config.getAvailableSeats() : flight.getAvailableSeats();
+    }
+
+    public Integer availableSeats(FlightResponse flight, SeatClass seatClass) {
+        SeatClassInfo info = findInfo(flight.getSeatConfiguration(), seatClass);
+        return info != null ? info.getAvailableSeats() : flight.getAvailableSeats();
+    }
+
+    public BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits);
+    }
+
+    private FareTable tableFor(String flightId, long[] classFares, int[] classTotalSeats) {
+        long version = version(classFares, classTotalSeats);
+        FareTable current = tables.getIfPresent(flightId);
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+
+        int tiers = tierLoadFactorBps.length;
+        long[] fares = FareTable.newFareArray(tiers);
+        for (int seatClass = 0; seatClass < SEAT_CLASSES.length; seatClass++) {
+            for (int tier = 0; tier < tiers; tier++) {
+                for (int passengerType = 0; passengerType < PASSENGER_TYPES.length; passengerType++) {
+                    long scaled = classFares[seatClass] * tierMultiplierBps[tier] * passengerMultiplierBps[passengerType];
+                    // Làm tròn half-up về đơn vị tiền nhỏ nhất
+                    fares[FareTable.fareIndex(seatClass, tier, tiers, passengerType)] =
+                            (scaled + FULL_MULTIPLIER_BPS * FULL_MULTIPLIER_BPS / 2) / (FULL_MULTIPLIER_BPS * FULL_MULTIPLIER_BPS);
+                }
+            }
+        }
+
+        FareTable table = new FareTable(flightId, version, tierLoadFactorBps.clone(), classTotalSeats, fares);
+        tables.put(flightId, table);
+        log.debug("Built fare table for flight {} (version {})", flightId, version);
+        return table;
+    }
+
+    /**
+     * Version = FNV-1a 64 bit trên toàn bộ input của bảng giá, giống nhau trên mọi instance.
+     */
+    private long version(long[] classFares, int[] classTotalSeats) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, fractionDigits);
+        for (int i = 0; i < tierLoadFactorBps.length; i++) {
+            hash = mix(hash, tierLoadFactorBps[i]);
+            hash = mix(hash, tierMultiplierBps[i]);
+        }
+        for (long multiplier : passengerMultiplierBps) {
+            hash = mix(hash, multiplier);
+        }
+        for (int i = 0; i < classFares.length; i++) {
+            hash = mix(hash, classFares[i]);
+            hash = mix(hash, classTotalSeats[i]);
+        }
+        return hash & Long.MAX_VALUE;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // ===== Quote =====
+
+    public String issueQuote(FareTable table, SeatClass seatClass, int tier) {
+        String payload = Long.toString(table.getVersion(), 36) + "." + seatClass.name() + "." + tier + "."
+                + Long.toString(Instant.now().getEpochSecond(), 36);
+        return payload + "." + sign(table.getFlightId(), payload);
+    }
+
+    /**
+     * Bậc giá đã chốt trong quote. Quote sai chữ ký, hết hạn hoặc bảng giá đã đổi version thì bị từ chối.
+     */
+    public int redeemQuote(String quote, FareTable table, SeatClass seatClass) {
+        String[] parts = quote.split("\\.");
+        if (parts.length != 5) {
+            throw new BusinessException("Invalid fare quote", "FARE_QUOTE_INVALID");
+        }
+        String payload = quote.substring(0, quote.lastIndexOf('.'));
+        byte[] expected = sign(table.getFlightId(), payload).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, parts[4].getBytes(StandardCharsets.US_ASCII))
+                || !seatClass.name().equals(parts[1])) {
+            throw new BusinessException("Invalid fare quote", "FARE_QUOTE_INVALID");
+        }
+
+        long version;
+        int tier;
+        long quotedAt;
+        try {
+            version = Long.parseLong(parts[0], 36);
+            tier = Integer.parseInt(parts[2]);
+            quotedAt = Long.parseLong(parts[3], 36);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Invalid fare quote", "FARE_QUOTE_INVALID");
+        }
+
+        if (version != table.getVersion()) {
+            throw new BusinessException("Fare has changed since it was quoted, please search again", "FARE_CHANGED");
+        }
+        if (Instant.now().getEpochSecond() - quotedAt > quoteTtlMinutes * 60) {
+            throw new BusinessException("Fare quote has expired, please search again", "FARE_QUOTE_EXPIRED");
+        }
+        if (!table.isValidTier(tier)) {
+            throw new BusinessException("Invalid fare quote", "FARE_QUOTE_INVALID");
+        }
+        return tier;
+    }
+
+    private String sign(String flightId, String payload) {
+        Mac mac = quoteMac.get();
+        mac.update(flightId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '|');
+        byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(signature, 12));
+    }
+
+    // ===== Helpers =====
+
+    private long toMinor(BigDecimal amount) {
+        return amount == null ? 0L : amount.movePointRight(fractionDigits).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal legacyPrice(SeatClass seatClass, BigDecimal basePrice, BigDecimal businessPrice, BigDecimal firstPrice) {
+        return switch (seatClass) {
+            case BUSINESS -> businessPrice != null ? businessPrice : basePrice;
+            case FIRST -> firstPrice != null ? firstPrice : basePrice;
+            default -> basePrice;
+        };
+    }
+
+    private static int seatsOrZero(Integer seats) {
+        return seats != null ? seats : 0;
+    }
+
+    private static SeatConfiguration findConfig(List<SeatConfiguration> configs, SeatClass seatClass) {
+        if (configs != null) {
+            for (SeatConfiguration config : configs) {
+                if (config.getSeatClass() == seatClass) {
+                    return config;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static SeatClassInfo findInfo(List<SeatClassInfo> infos, SeatClass seatClass) {
+        if (infos != null) {
+            for (SeatClassInfo info : infos) {
+                if (seatClass.name().equals(info.getSeatClass())) {
+                    return info;
+                }
+            }
+        }
+        return null;
+    }
+}
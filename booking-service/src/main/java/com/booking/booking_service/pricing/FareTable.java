@@ -0,0 +1,87 @@
+package com.booking.booking_service.pricing;
+
+import com.booking.booking_service.utils.SeatClass;
+
+/**
+ * Bảng giá đã tính sẵn của một chuyến bay: giá (đơn vị tiền nhỏ nhất, kiểu long) theo hạng ghế x bậc giá x loại hành khách.
+ * <p>
+ * Bậc giá được chọn theo load factor hiện tại của hạng ghế. Bảng là immutable và được xác định hoàn toàn bởi
+ * {@link #getVersion()}: cùng version thì mọi instance cho ra cùng một giá, nên quote chỉ cần mang version + bậc giá.
+ * Tra giá chỉ là phép tính trên mảng, không cấp phát object.
+ */
+public final class FareTable {
+
+    private static final int SEAT_CLASSES = SeatClass.values().length;
+    private static final int PASSENGER_TYPES = PassengerType.values().length;
+
+    private final String flightId;
+    private final long version;
+    private final int[] tierLoadFactorBps;  // Ngưỡng load factor (basis point) bắt đầu mỗi bậc, tăng dần, [0] = 0
+    private final int[] classTotalSeats;    // Theo SeatClass.ordinal()
+    private final long[] fares;             // [(seatClass * tiers + tier) * PASSENGER_TYPES + passengerType]
+
+    FareTable(String flightId, long version, int[] tierLoadFactorBps, int[] classTotalSeats, long[] fares) {
+        this.flightId = flightId;
+        this.version = version;
+        this.tierLoadFactorBps = tierLoadFactorBps;
+        this.classTotalSeats = classTotalSeats;
+        this.fares = fares;
+    }
+
+    static long[] newFareArray(int tiers) {
+        return new long[SEAT_CLASSES * tiers * PASSENGER_TYPES];
+    }
+
+    static int fareIndex(int seatClass, int tier, int tiers, int passengerType) {
+        return (seatClass * tiers + tier) * PASSENGER_TYPES + passengerType;
+    }
+
+    public String getFlightId() {
+        return flightId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getTierCount() {
+        return tierLoadFactorBps.length;
+    }
+
+    /**
+     * Bậc giá theo số ghế còn trống của hạng ghế (không biết số ghế thì dùng bậc thấp nhất).
+     */
+    public int tierFor(SeatClass seatClass, Integer availableSeats) {
+        int totalSeats = classTotalSeats[seatClass.ordinal()];
+        if (availableSeats == null || totalSeats <= 0) {
+            return 0;
+        }
+        long soldSeats = Math.max(0, totalSeats - (long) availableSeats);
+        long loadFactorBps = soldSeats * 10_000 / totalSeats;
+
+        int tier = 0;
+        while (tier + 1 < tierLoadFactorBps.length && loadFactorBps >= tierLoadFactorBps[tier + 1]) {
+            tier++;
+        }
+        return tier;
+    }
+
+    public long fare(SeatClass seatClass, int tier, PassengerType passengerType) {
+        return fares[fareIndex(seatClass.ordinal(), tier, tierLoadFactorBps.length, passengerType.ordinal())];
+    }
+
+    public long total(SeatClass seatClass, int tier, int adults, int children, int infants) {
+        int base = fareIndex(seatClass.ordinal(), tier, tierLoadFactorBps.length, 0);
+        return fares[base + PassengerType.ADULT.ordinal()] * adults
+                + fares[base + PassengerType.CHILD.ordinal()] * children
+                + fares[base + PassengerType.INFANT.ordinal()] * infants;
+    }
+
+    public long total(SeatClass seatClass, int tier, PassengerCounts passengers) {
+        return total(seatClass, tier, passengers.adults(), passengers.children(), passengers.infants());
+    }
+
+    public boolean isValidTier(int tier) {
+        return tier >= 0 && tier < tierLoadFactorBps.length;
+    }
+}
@@ -0,0 +1,17 @@
+package com.booking.booking_service.pricing;
+
+/**
+ * Số hành khách theo loại; infant ngồi cùng người lớn nên không chiếm ghế.
+ */
+public record PassengerCounts(int adults, int children, int infants) {
+
+    public static PassengerCounts of(Integer adults, Integer children, Integer infants) {
+        return new PassengerCounts(Math.max(1, adults != null ? adults : 1),
+                Math.max(0, children != null ? children : 0),
+                Math.max(0, infants != null ? infants : 0));
+    }
+
+    public int seatCount() {
+        return adults + children;
+    }
+}
@@ -0,0 +1,26 @@
+package com.booking.booking_service.pricing;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+
+public enum PassengerType {
+    ADULT,  // Từ 12 tuổi
+    CHILD,  // 2 - 11 tuổi, có ghế riêng
+    INFANT; // Dưới 2 tuổi, ngồi cùng người lớn
+
+    /**
+     * Loại hành khách theo tuổi tại ngày bay; ngày sinh không đọc được thì tính là người lớn.
+     */
+    public static PassengerType of(String dateOfBirth, LocalDate travelDate) {
+        if (dateOfBirth == null || dateOfBirth.isBlank() || travelDate == null) {
+            return ADULT;
+        }
+        try {
+            int age = Period.between(LocalDate.parse(dateOfBirth.trim()), travelDate).getYears();
+            return age < 2 ? INFANT : age < 12 ? CHILD : ADULT;
+        } catch (DateTimeParseException e) {
+            return ADULT;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -22,6 +23,18 @@ public interface BookingRepository extends MongoRepository<Booking, String> {
 
     List<Booking> findByFlightId(String flightId);
 
+    long countByUserId(Long userId);
+
+    // Keyset pagination: sort (createdAt desc, _id desc), booking cũ chưa có createdAt nằm cuối
+    @Query("{ 'userId': ?0 }")
+    List<Booking> findUserBookingsFirstPage(Long userId, Pageable pageable);
+
+    @Query("{ 'userId': ?0, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } }, { 'createdAt': null } ] }")
+    List<Booking> findUserBookingsAfter(Long userId, LocalDateTime createdAt, String id, Pageable pageable);
+
+    @Query("{ 'userId': ?0, 'createdAt': null, '_id': { $lt: ?1 } }")
+    List<Booking> findUndatedUserBookingsAfter(Long userId, String id, Pageable pageable);
+
     @Query("{ 'userId': ?0, 'bookingStatus': ?1 }")
     Page<Booking> findByUserIdAndStatus(Long userId, BookingStatus status, Pageable pageable);
 
@@ -42,4 +55,22 @@ public interface BookingRepository extends MongoRepository<Booking, String> {
 
     @Query("{ 'userId': ?0, 'createdAt': { $gte: ?1 } }")
     Page<Booking> findRecentBookingsByUser(Long userId, LocalDateTime since, Pageable pageable);
-}
\ No newline at end of file
+
+    // Chuyển trạng thái có điều kiện: trả về số document khớp, 0 nghĩa là booking đã bị thay đổi bởi luồng khác
+    @Query("{ '_id': ?0, 'bookingStatus': { $in: ['PENDING', 'LOCKED'] } }")
+    @Update("{ '$set': { 'bookingStatus': 'CONFIRMED', 'paymentStatus': 'COMPLETED', 'confirmedAt': ?1 } }")
+    long markConfirmed(String id, LocalDateTime confirmedAt);
+
+    @Query("{ '_id': ?0, 'bookingStatus': 'LOCKED' }")
+    @Update("{ '$set': { 'bookingStatus': 'EXPIRED' } }")
+    long markExpired(String id);
+
+    @Query("{ '_id': ?0, 'bookingStatus': ?1, 'paymentStatus': ?2 }")
+    @Update("{ '$set': { 'bookingStatus': 'CANCELLED', 'cancellationReason': ?3, 'cancelledAt': ?4 } }")
+    long markCancelled(String id, BookingStatus expectedStatus, PaymentStatus expectedPaymentStatus,
+                       String reason, LocalDateTime cancelledAt);
+
+    @Query("{ '_id': ?0, 'bookingStatus': { $in: ['PENDING', 'LOCKED'] } }")
+    @Update("{ '$set': { 'paymentStatus': ?1 } }")
+    long updatePaymentStatusIfOpen(String id, PaymentStatus paymentStatus);
+}
@@ -23,9 +23,24 @@ public interface FlightRepository extends MongoRepository<Flight, String> {
     Page<Flight> findFlightsByRoute(String departureAirport, String arrivalAirport,
                                     LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
 
-    @Query("{ 'departureAirport': ?0, 'arrivalAirport': ?1, 'departureTime': { $gte: ?2, $lt: ?3 }, 'status': 'SCHEDULED', 'availableSeats': { $gt: 0 } }")
+    // Lọc theo counter tổng và counter của hạng ghế ngay trên MongoDB (chuyến không cấu hình hạng ghế đó vẫn được giữ lại)
+    @Query("{ 'departureAirport': ?0, 'arrivalAirport': ?1, 'departureTime': { $gte: ?2, $lt: ?3 }, 'status': 'SCHEDULED', " +
+            "'availableSeats': { $gte: ?4 }, 'seatConfiguration': { $not: { $elemMatch: { 'seatClass': ?5, 'availableSeats': { $lt: ?4 } } } } }")
     Page<Flight> findAvailableFlightsByRoute(String departureAirport, String arrivalAirport,
-                                             LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+                                             LocalDateTime startDate, LocalDateTime endDate,
+                                             int seatCount, String seatClass, Pageable pageable);
+
+    // Chặng đầu của chuyến nối: mọi chuyến còn ghế rời sân bay đi trong khoảng thời gian
+    @Query("{ 'departureAirport': ?0, 'departureTime': { $gte: ?1, $lt: ?2 }, 'status': 'SCHEDULED', " +
+            "'availableSeats': { $gte: ?3 }, 'seatConfiguration': { $not: { $elemMatch: { 'seatClass': ?4, 'availableSeats': { $lt: ?3 } } } } }")
+    List<Flight> findAvailableDepartures(String departureAirport, LocalDateTime startDate, LocalDateTime endDate,
+                                         int seatCount, String seatClass);
+
+    // Chặng cuối của chuyến nối: mọi chuyến còn ghế bay tới sân bay đến, khởi hành trong khoảng thời gian
+    @Query("{ 'arrivalAirport': ?0, 'departureTime': { $gte: ?1, $lt: ?2 }, 'status': 'SCHEDULED', " +
+            "'availableSeats': { $gte: ?3 }, 'seatConfiguration': { $not: { $elemMatch: { 'seatClass': ?4, 'availableSeats': { $lt: ?3 } } } } }")
+    List<Flight> findAvailableArrivals(String arrivalAirport, LocalDateTime startDate, LocalDateTime endDate,
+                                       int seatCount, String seatClass);
 
     @Query("{ 'departureTime': { $gte: ?0, $lt: ?1 }, 'status': 'SCHEDULED' }")
     List<Flight> findFlightsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
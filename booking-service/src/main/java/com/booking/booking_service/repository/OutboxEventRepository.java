@@ -0,0 +1,33 @@
+package com.booking.booking_service.repository;
+
+import com.booking.booking_service.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+
+    @Query(value = "{ 'status': 'PENDING' }", sort = "{ 'sequence': 1 }")
+    List<OutboxEvent> findPending(Pageable pageable);
+
+    @Query("{ '_id': { $in: ?0 }, 'status': 'PENDING' }")
+    @Update("{ '$set': { 'status': 'PUBLISHED', 'publishedAt': ?1 } }")
+    long markPublished(List<String> ids, LocalDateTime publishedAt);
+
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'attempts': 1 }, '$set': { 'lastError': ?1 } }")
+    void markFailed(String id, String error);
+
+    @Query("{ '_id': ?0, 'status': 'PENDING' }")
+    @Update("{ '$inc': { 'attempts': 1 }, '$set': { 'status': 'FAILED', 'lastError': ?1 } }")
+    void markDeadLettered(String id, String error);
+
+    @Query(value = "{ 'status': 'PENDING' }", count = true)
+    long countPending();
+}
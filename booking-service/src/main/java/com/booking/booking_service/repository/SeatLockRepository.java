@@ -1,8 +1,10 @@
 package com.booking.booking_service.repository;
 
 import com.booking.booking_service.entity.SeatLock;
+import org.springframework.data.mongodb.repository.DeleteQuery;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -18,6 +20,12 @@ public interface SeatLockRepository extends MongoRepository<SeatLock, String> {
     @Query("{ 'flightId': ?0, 'seatNumber': { $in: ?1 }, 'status': 'ACTIVE' }")
     List<SeatLock> findActiveLocksBySeats(String flightId, List<String> seatNumbers);
 
+    @Query("{ 'flightId': ?0, 'status': 'ACTIVE' }")
+    List<SeatLock> findActiveLocksByFlight(String flightId);
+
+    @Query("{ 'flightId': ?0, 'status': { $in: ['ACTIVE', 'CONFIRMED'] } }")
+    List<SeatLock> findOccupyingLocksByFlight(String flightId);
+
     @Query("{ 'userId': ?0, 'status': 'ACTIVE' }")
     List<SeatLock> findActiveLocksByUser(Long userId);
 
@@ -27,6 +35,25 @@ public interface SeatLockRepository extends MongoRepository<SeatLock, String> {
     @Query("{ 'expiresAt': { $lt: ?0 }, 'status': 'ACTIVE' }")
     List<SeatLock> findExpiredLocks(LocalDateTime currentTime);
 
+    @Query("{ 'flightId': ?0, 'seatNumber': { $in: ?1 }, 'expiresAt': { $lte: ?2 }, 'status': 'ACTIVE' }")
+    List<SeatLock> findExpiredLocksBySeats(String flightId, List<String> seatNumbers, LocalDateTime currentTime);
+
+    @Query("{ '_id': { $in: ?0 }, 'expiresAt': { $lte: ?1 }, 'status': 'ACTIVE' }")
+    @Update("{ '$set': { 'status': 'EXPIRED' } }")
+    long markExpiredByIds(List<String> ids, LocalDateTime currentTime);
+
+    @Query("{ '_id': { $in: ?0 }, 'status': 'ACTIVE' }")
+    @Update("{ '$set': { 'status': 'RELEASED' } }")
+    long markReleasedByIds(List<String> ids);
+
+    @Query("{ '_id': { $in: ?0 }, 'status': 'ACTIVE' }")
+    @Update("{ '$set': { 'status': 'CONFIRMED', 'bookingId': ?1 } }")
+    long markConfirmedByIds(List<String> ids, String bookingId);
+
+    @Query("{ 'bookingId': ?0, 'status': 'CONFIRMED' }")
+    @Update("{ '$set': { 'status': 'RELEASED' } }")
+    long markReleasedByBooking(String bookingId);
+
     @Query("{ 'flightId': ?0, 'userId': ?1, 'status': 'ACTIVE' }")
     List<SeatLock> findActiveLocksByFlightAndUser(String flightId, Long userId);
 
@@ -37,4 +64,8 @@ public interface SeatLockRepository extends MongoRepository<SeatLock, String> {
 
     void deleteBySessionId(String sessionId);
 
+    // Dọn các row của một lần insert bị lỗi giữa chừng (insert có thứ tự giữ lại các row trước row lỗi)
+    @DeleteQuery("{ 'flightId': ?0, 'seatNumber': { $in: ?1 }, 'userId': ?2, 'lockedAt': ?3, 'status': 'ACTIVE' }")
+    void deleteActiveLocksLockedAt(String flightId, List<String> seatNumbers, Long userId, LocalDateTime lockedAt);
+
 }
\ No newline at end of file
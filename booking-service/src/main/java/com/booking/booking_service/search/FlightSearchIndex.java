@@ -0,0 +1,369 @@
+package com.booking.booking_service.search;
+
+import com.booking.booking_service.cache.FlightSeatCounters;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.SeatConfiguration;
+import com.booking.booking_service.repository.FlightRepository;
+import com.booking.booking_service.utils.FlightStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Index tìm kiếm chuyến bay trong bộ nhớ: flight được chia bucket theo (sân bay đi, sân bay đến, ngày bay),
+ * mỗi bucket giữ sẵn 3 mảng đã sort theo giá, giờ khởi hành và thời gian bay.
+ * <p>
+ * Bucket là immutable và được thay nguyên khối khi có thay đổi nên đọc không cần lock.
+ * Index được build lúc khởi động bằng một Mongo cursor và cập nhật từng flight qua {@link #refresh(String)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlightSearchIndex {
+
+    // Yêu cầu mọi instance build lại index (sau khi import nhiều flight một lúc)
+    public static final String REBUILD_CHANNEL = "flight_index:rebuild";
+
+    private final MongoTemplate mongoTemplate;
+    private final FlightRepository flightRepository;
+
+    @Value("${app.booking.search-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Map<String, RouteDayBucket> buckets = new ConcurrentHashMap<>();
+    private volatile Map<String, Flight> flightsById = new ConcurrentHashMap<>();
+    // Key bucket theo (sân bay đi, ngày) và (sân bay đến, ngày) cho tìm chuyến nối chặng, không phải quét mọi bucket
+    private volatile Map<String, Set<String>> bucketsByDeparture = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<String>> bucketsByArrival = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Flight thay đổi trong lúc rebuild, cần refresh lại sau khi swap index mới
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    private static final Comparator<Flight> BY_PRICE = Comparator
+            .comparing(Flight::getBasePrice, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()))
+            .thenComparing(Flight::getId);
+    private static final Comparator<Flight> BY_DEPARTURE_TIME = Comparator
+            .comparing(Flight::getDepartureTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Flight::getId);
+    private static final Comparator<Flight> BY_DURATION = Comparator
+            .comparing(Flight::getDurationMinutes, Comparator.nullsLast(Comparator.<Integer>naturalOrder()))
+            .thenComparing(Flight::getId);
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Build index ngay sau khi khởi động, sau đó build lại định kỳ
+     * (loại chuyến đã bay, bù cho message cập nhật bị lỡ).
+     */
+    @Scheduled(fixedDelayString = "${app.booking.search-index.rebuild-interval-ms:1800000}",
+            initialDelayString = "${app.booking.search-index.initial-delay-ms:30000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            Map<String, Flight> newFlightsById = new ConcurrentHashMap<>();
+            Map<String, List<Flight>> flightsByBucket = new HashMap<>();
+
+            Query query = Query.query(Criteria.where("status").is(FlightStatus.SCHEDULED)
+                    .and("departureTime").gte(LocalDate.now().atStartOfDay()));
+            try (Stream<Flight> flights = mongoTemplate.stream(query, Flight.class)) {
+                flights.filter(this::isIndexable).forEach(flight -> {
+                    newFlightsById.put(flight.getId(), flight);
+                    flightsByBucket.computeIfAbsent(bucketKey(flight), key -> new ArrayList<>()).add(flight);
+                });
+            }
+
+            Map<String, RouteDayBucket> newBuckets = new ConcurrentHashMap<>();
+            Map<String, Set<String>> newBucketsByDeparture = new ConcurrentHashMap<>();
+            Map<String, Set<String>> newBucketsByArrival = new ConcurrentHashMap<>();
+            flightsByBucket.forEach((key, flights) -> {
+                newBuckets.put(key, RouteDayBucket.of(flights));
+                Flight any = flights.get(0);
+                addBucketKey(newBucketsByDeparture, departureKey(any), key);
+                addBucketKey(newBucketsByArrival, arrivalKey(any), key);
+            });
+
+            synchronized (this) {
+                buckets = newBuckets;
+                bucketsByDeparture = newBucketsByDeparture;
+                bucketsByArrival = newBucketsByArrival;
+                flightsById = newFlightsById;
+                rebuilding = false;
+            }
+            ready = true;
+            changedDuringRebuild.forEach(this::refresh);
+
+            log.info("Flight search index built: {} flights in {} route/day buckets ({} ms)",
+                    newFlightsById.size(), newBuckets.size(), System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Error building flight search index: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /**
+     * Đọc lại flight từ MongoDB và cập nhật index (flight bị xóa thì bỏ khỏi index).
+     */
+    public void refresh(String flightId) {
+        if (!enabled) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.add(flightId);
+        }
+        flightRepository.findById(flightId).ifPresentOrElse(this::upsert, () -> remove(flightId));
+    }
+
+    public synchronized void upsert(Flight flight) {
+        Flight current = flightsById.get(flight.getId());
+        if (current != null && current.getUpdatedAt() != null && flight.getUpdatedAt() != null
+                && flight.getUpdatedAt().isBefore(current.getUpdatedAt())) {
+            return; // Bản đọc cũ hơn bản đang có trong index
+        }
+        if (current != null) {
+            removeFromBucket(current);
+        }
+        if (!isIndexable(flight)) {
+            flightsById.remove(flight.getId());
+            return;
+        }
+        flightsById.put(flight.getId(), flight);
+        String key = bucketKey(flight);
+        buckets.compute(key, (k, bucket) -> bucket == null
+                ? RouteDayBucket.of(List.of(flight))
+                : bucket.with(flight));
+        addBucketKey(bucketsByDeparture, departureKey(flight), key);
+        addBucketKey(bucketsByArrival, arrivalKey(flight), key);
+    }
+
+    /**
+     * Cập nhật số ghế trống của flight đang có trong index mà không đọc lại MongoDB.
+     */
+    public synchronized void applySeatCounters(FlightSeatCounters counters) {
+        if (!enabled) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.add(counters.getFlightId());
+        }
+        Flight current = flightsById.get(counters.getFlightId());
+        if (current == null || counters.isOlderThan(current.getUpdatedAt())) {
+            return;
+        }
+        Flight updated = current.toBuilder()
+                .availableSeats(counters.getAvailableSeats())
+                .updatedAt(counters.getUpdatedAt())
+                .build();
+        if (current.getSeatConfiguration() != null) {
+            updated.setSeatConfiguration(current.getSeatConfiguration().stream()
+                    .map(config -> config.toBuilder()
+                            .availableSeats(counters.availableSeats(config.getSeatClass(), config.getAvailableSeats()))
+                            .build())
+                    .toList());
+        }
+        upsert(updated);
+    }
+
+    public synchronized void remove(String flightId) {
+        Flight current = flightsById.remove(flightId);
+        if (current != null) {
+            removeFromBucket(current);
+        }
+    }
+
+    /**
+     * Cùng điều kiện với {@code FlightRepository.findAvailableFlightsByRoute}, đọc hoàn toàn từ bộ nhớ.
+     */
+    public Page<Flight> search(String departureAirport, String arrivalAirport, LocalDate departureDate,
+                               int seatCount, String seatClass, String sortBy, String sortOrder,
+                               int page, int size) {
+        RouteDayBucket bucket = buckets.get(bucketKey(departureAirport, arrivalAirport, departureDate));
+        PageRequest pageRequest = PageRequest.of(page, size);
+        if (bucket == null) {
+            return new PageImpl<>(List.of(), pageRequest, 0);
+        }
+
+        Flight[] sorted = bucket.sortedBy(sortBy);
+        boolean descending = "DESC".equalsIgnoreCase(sortOrder);
+        long offset = (long) page * size;
+        List<Flight> content = new ArrayList<>(Math.min(size, sorted.length));
+        long matched = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            Flight flight = sorted[descending ? sorted.length - 1 - i : i];
+            if (!hasSeats(flight, seatCount, seatClass)) {
+                continue;
+            }
+            if (matched >= offset && content.size() < size) {
+                content.add(flight);
+            }
+            matched++;
+        }
+        return new PageImpl<>(content, pageRequest, matched);
+    }
+
+    /**
+     * Các chuyến còn ghế rời {@code departureAirport} trong ngày {@code departureDate} (mọi điểm đến).
+     */
+    public List<Flight> departures(String departureAirport, LocalDate departureDate, int seatCount, String seatClass) {
+        List<Flight> result = new ArrayList<>();
+        collect(bucketsByDeparture.get(departureAirport + ":" + departureDate), seatCount, seatClass, result);
+        return result;
+    }
+
+    /**
+     * Các chuyến còn ghế bay tới {@code arrivalAirport}, khởi hành trong các ngày [fromDate, toDate].
+     */
+    public List<Flight> arrivals(String arrivalAirport, LocalDate fromDate, LocalDate toDate, int seatCount, String seatClass) {
+        List<Flight> result = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            collect(bucketsByArrival.get(arrivalAirport + ":" + date), seatCount, seatClass, result);
+        }
+        return result;
+    }
+
+    private void collect(Set<String> bucketKeys, int seatCount, String seatClass, List<Flight> result) {
+        if (bucketKeys == null) {
+            return;
+        }
+        for (String key : bucketKeys) {
+            RouteDayBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            for (Flight flight : bucket.byDepartureTime()) {
+                if (hasSeats(flight, seatCount, seatClass)) {
+                    result.add(flight);
+                }
+            }
+        }
+    }
+
+    private void removeFromBucket(Flight flight) {
+        String key = bucketKey(flight);
+        if (buckets.computeIfPresent(key, (k, bucket) -> bucket.without(flight.getId())) == null) {
+            removeBucketKey(bucketsByDeparture, departureKey(flight), key);
+            removeBucketKey(bucketsByArrival, arrivalKey(flight), key);
+        }
+    }
+
+    private static void addBucketKey(Map<String, Set<String>> bucketKeys, String lookupKey, String bucketKey) {
+        bucketKeys.computeIfAbsent(lookupKey, k -> ConcurrentHashMap.newKeySet()).add(bucketKey);
+    }
+
+    private static void removeBucketKey(Map<String, Set<String>> bucketKeys, String lookupKey, String bucketKey) {
+        bucketKeys.computeIfPresent(lookupKey, (k, keys) -> {
+            keys.remove(bucketKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static String departureKey(Flight flight) {
+        return flight.getDepartureAirport() + ":" + flight.getDepartureTime().toLocalDate();
+    }
+
+    private static String arrivalKey(Flight flight) {
+        return flight.getArrivalAirport() + ":" + flight.getDepartureTime().toLocalDate();
+    }
+
+    private boolean isIndexable(Flight flight) {
+        return flight.getStatus() == FlightStatus.SCHEDULED && flight.getDepartureTime() != null
+                && flight.getDepartureAirport() != null && flight.getArrivalAirport() != null;
+    }
+
+    private static boolean hasSeats(Flight flight, int seatCount, String seatClass) {
+        if (flight.getAvailableSeats() == null || flight.getAvailableSeats() < seatCount) {
+            return false;
+        }
+        if (flight.getSeatConfiguration() != null) {
+            for (SeatConfiguration config : flight.getSeatConfiguration()) {
+                if (config.getSeatClass() != null && config.getSeatClass().name().equals(seatClass)
+                        && config.getAvailableSeats() != null && config.getAvailableSeats() < seatCount) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String bucketKey(Flight flight) {
+        return bucketKey(flight.getDepartureAirport(), flight.getArrivalAirport(), flight.getDepartureTime().toLocalDate());
+    }
+
+    private static String bucketKey(String departureAirport, String arrivalAirport, LocalDate departureDate) {
+        return departureAirport + ":" + arrivalAirport + ":" + departureDate;
+    }
+
+    private record RouteDayBucket(Flight[] byPrice, Flight[] byDepartureTime, Flight[] byDuration) {
+
+        static RouteDayBucket of(Collection<Flight> flights) {
+            Flight[] byPrice = flights.toArray(Flight[]::new);
+            Flight[] byDepartureTime = byPrice.clone();
+            Flight[] byDuration = byPrice.clone();
+            Arrays.sort(byPrice, BY_PRICE);
+            Arrays.sort(byDepartureTime, BY_DEPARTURE_TIME);
+            Arrays.sort(byDuration, BY_DURATION);
+            return new RouteDayBucket(byPrice, byDepartureTime, byDuration);
+        }
+
+        RouteDayBucket with(Flight flight) {
+            List<Flight> flights = new ArrayList<>(byPrice.length + 1);
+            for (Flight existing : byPrice) {
+                if (!existing.getId().equals(flight.getId())) {
+                    flights.add(existing);
+                }
+            }
+            flights.add(flight);
+            return of(flights);
+        }
+
+        RouteDayBucket without(String flightId) {
+            List<Flight> flights = new ArrayList<>(byPrice.length);
+            for (Flight existing : byPrice) {
+                if (!existing.getId().equals(flightId)) {
+                    flights.add(existing);
+                }
+            }
+            return flights.isEmpty() ? null : of(flights);
+        }
+
+        Flight[] sortedBy(String sortBy) {
+            return switch (sortBy) {
+                case "PRICE" -> byPrice;
+                case "DURATION" -> byDuration;
+                default -> byDepartureTime;
+            };
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.booking.booking_service.search;
+
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.pricing.FareEngine;
+import com.booking.booking_service.pricing.FareTable;
+import com.booking.booking_service.pricing.PassengerCounts;
+import com.booking.booking_service.repository.FlightRepository;
+import com.booking.booking_service.utils.SeatClass;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Tìm hành trình bay thẳng và nối chuyến 1 điểm dừng, một chiều hoặc khứ hồi.
+ * <p>
+ * Các chặng của cả hai chiều được lấy song song (index trong bộ nhớ nếu đã sẵn sàng, ngược lại là MongoDB)
+ * và cùng bị giới hạn bởi một deadline; chặng nào không kịp thì bị bỏ qua và kết quả được đánh dấu {@code partial}.
+ * Chuyến nối được ghép trên đồ thị theo thời gian: chặng hai tại mỗi sân bay nối được sort theo giờ khởi hành,
+ * với mỗi chặng đầu chỉ duyệt cửa sổ [giờ đến + thời gian nối tối thiểu, giờ đến + thời gian nối tối đa].
+ * Kết quả giữ top-K bằng heap giới hạn kích thước thay vì sort toàn bộ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItinerarySearchEngine {
+
+    private final FlightSearchIndex flightSearchIndex;
+    private final FlightRepository flightRepository;
+    private final FareEngine fareEngine;
+
+    // Virtual thread: mỗi chặng là một query blocking ngắn, không cần giữ pool riêng
+    private final ExecutorService legFetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.booking.itinerary-search.min-connection-minutes:45}")
+    private long minConnectionMinutes;
+
+    @Value("${app.booking.itinerary-search.max-connection-minutes:480}")
+    private long maxConnectionMinutes;
+
+    @Value("${app.booking.itinerary-search.timeout-ms:800}")
+    private long timeoutMs;
+
+    public record Itinerary(List<Flight> legs, long totalFareMinor, long durationMinutes, long layoverMinutes) {
+
+        public LocalDateTime departureTime() {
+            return legs.get(0).getDepartureTime();
+        }
+
+        public int stops() {
+            return legs.size() - 1;
+        }
+    }
+
+    public record Result(List<Itinerary> outbound, List<Itinerary> inbound, boolean partial) {
+    }
+
+    public Result search(String departureAirport, String arrivalAirport, LocalDate departureDate, LocalDate returnDate,
+                         PassengerCounts passengers, SeatClass seatClass, boolean directFlightsOnly,
+                         String sortBy, String sortOrder, int limit) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Comparator<Itinerary> ranking = ranking(sortBy, sortOrder);
+
+        // Khởi động fetch cho cả hai chiều trước, sau đó mới chờ kết quả
+        int seatCount = passengers.seatCount();
+        LegFetch outboundFetch = startFetch(departureAirport, arrivalAirport, departureDate,
+                seatCount, seatClass, directFlightsOnly);
+        LegFetch inboundFetch = returnDate != null
+                ? startFetch(arrivalAirport, departureAirport, returnDate, seatCount, seatClass, directFlightsOnly)
+                : null;
+
+        List<Itinerary> outbound = rank(outboundFetch, departureAirport, arrivalAirport, seatClass, passengers,
+                ranking, limit, deadline);
+        List<Itinerary> inbound = inboundFetch != null
+                ? rank(inboundFetch, arrivalAirport, departureAirport, seatClass, passengers, ranking, limit, deadline)
+                : List.of();
+
+        boolean partial = outboundFetch.timedOut || (inboundFetch != null && inboundFetch.timedOut);
+        if (partial) {
+            log.warn("Itinerary search {} -> {} exceeded {} ms budget, returning partial results",
+                    departureAirport, arrivalAirport, timeoutMs);
+        }
+        return new Result(outbound, inbound, partial);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        legFetchExecutor.shutdownNow();
+    }
+
+    // ===== Fetch =====
+
+    private LegFetch startFetch(String origin, String destination, LocalDate date,
+                                int seatCount, SeatClass seatClass, boolean directFlightsOnly) {
+        String seatClassName = seatClass.name();
+        LocalDateTime startOfDay = date.atStartOfDay();
+
+        if (directFlightsOnly) {
+            return new LegFetch(fetchAsync(() -> routeFlights(origin, destination, date, seatCount, seatClassName)), null);
+        }
+
+        // Chặng đầu chứa luôn chuyến bay thẳng; chặng đầu hạ cánh muộn nhất cuối ngày hôm sau,
+        // nên chặng hai khởi hành muộn nhất là thời điểm đó + thời gian nối tối đa
+        LocalDateTime lastSecondLegDeparture = startOfDay.plusDays(2).plusMinutes(maxConnectionMinutes);
+        LocalDate lastSecondLegDate = lastSecondLegDeparture.toLocalDate();
+        return new LegFetch(
+                fetchAsync(() -> flightSearchIndex.isReady()
+                        ? flightSearchIndex.departures(origin, date, seatCount, seatClassName)
+                        : flightRepository.findAvailableDepartures(origin, startOfDay, startOfDay.plusDays(1),
+                                seatCount, seatClassName)),
+                fetchAsync(() -> flightSearchIndex.isReady()
+                        ? flightSearchIndex.arrivals(destination, date, lastSecondLegDate, seatCount, seatClassName)
+                        : flightRepository.findAvailableArrivals(destination, startOfDay,
+                                lastSecondLegDeparture, seatCount, seatClassName)));
+    }
+
+    private List<Flight> routeFlights(String origin, String destination, LocalDate date, int seatCount, String seatClass) {
+        if (flightSearchIndex.isReady()) {
+            return flightSearchIndex.search(origin, destination, date, seatCount, seatClass,
+                    "DEPARTURE_TIME", "ASC", 0, Integer.MAX_VALUE).getContent();
+        }
+        LocalDateTime startOfDay = date.atStartOfDay();
+        return flightRepository.findAvailableFlightsByRoute(origin, destination, startOfDay, startOfDay.plusDays(1),
+                seatCount, seatClass, Pageable.unpaged()).getContent();
+    }
+
+    private CompletableFuture<List<Flight>> fetchAsync(Supplier<List<Flight>> fetch) {
+        return CompletableFuture.supplyAsync(fetch, legFetchExecutor);
+    }
+
+    private List<Flight> await(LegFetch fetch, CompletableFuture<List<Flight>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            fetch.timedOut = true;
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetch.timedOut = true;
+            return List.of();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to fetch flight legs", e.getCause());
+        }
+    }
+
+    // ===== Ghép hành trình =====
+
+    private List<Itinerary> rank(LegFetch fetch, String origin, String destination, SeatClass seatClass,
+                                 PassengerCounts passengers, Comparator<Itinerary> ranking, int limit, long deadline) {
+        TopK topK = new TopK(ranking, limit);
+
+        List<Flight> firstLegs = await(fetch, fetch.firstLegs, deadline);
+        for (Flight flight : firstLegs) {
+            if (destination.equals(flight.getArrivalAirport())) {
+                Itinerary direct = itinerary(List.of(flight), seatClass, passengers);
+                if (direct != null) {
+                    topK.offer(direct);
+                }
+            }
+        }
+
+        if (fetch.secondLegs != null) {
+            List<Flight> secondLegs = await(fetch, fetch.secondLegs, deadline);
+            connect(firstLegs, secondLegs, origin, destination, seatClass, passengers, topK);
+        }
+        return topK.sorted();
+    }
+
+    private void connect(List<Flight> firstLegs, List<Flight> secondLegs, String origin, String destination,
+                         SeatClass seatClass, PassengerCounts passengers, TopK topK) {
+        // Chặng hai theo sân bay nối, sort theo giờ khởi hành
+        Map<String, List<Flight>> secondLegsByHub = new HashMap<>();
+        for (Flight flight : secondLegs) {
+            if (flight.getDepartureTime() != null && !origin.equals(flight.getDepartureAirport())) {
+                secondLegsByHub.computeIfAbsent(flight.getDepartureAirport(), hub -> new ArrayList<>()).add(flight);
+            }
+        }
+        secondLegsByHub.values().forEach(flights -> flights.sort(Comparator.comparing(Flight::getDepartureTime)));
+
+        for (Flight first : firstLegs) {
+            if (first.getArrivalTime() == null || destination.equals(first.getArrivalAirport())) {
+                continue;
+            }
+            List<Flight> candidates = secondLegsByHub.get(first.getArrivalAirport());
+            if (candidates == null) {
+                continue;
+            }
+
+            LocalDateTime earliest = first.getArrivalTime().plusMinutes(minConnectionMinutes);
+            LocalDateTime latest = first.getArrivalTime().plusMinutes(maxConnectionMinutes);
+            for (int i = firstDepartingAtOrAfter(candidates, earliest);
+                 i < candidates.size() && !candidates.get(i).getDepartureTime().isAfter(latest); i++) {
+                Itinerary connection = itinerary(List.of(first, candidates.get(i)), seatClass, passengers);
+                if (connection != null) {
+                    topK.offer(connection);
+                }
+            }
+        }
+    }
+
+    private static int firstDepartingAtOrAfter(List<Flight> flights, LocalDateTime time) {
+        int low = 0;
+        int high = flights.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (flights.get(mid).getDepartureTime().isBefore(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Itinerary itinerary(List<Flight> legs, SeatClass seatClass, PassengerCounts passengers) {
+        long totalFare = 0;
+        for (Flight leg : legs) {
+            FareTable fareTable = fareEngine.tableFor(leg);
+            int tier = fareTable.tierFor(seatClass, fareEngine.availableSeats(leg, seatClass));
+            totalFare += fareTable.total(seatClass, tier, passengers);
+        }
+
+        Flight first = legs.get(0);
+        Flight last = legs.get(legs.size() - 1);
+        long duration;
+        if (first.getDepartureTime() != null && last.getArrivalTime() != null) {
+            duration = Duration.between(first.getDepartureTime(), last.getArrivalTime()).toMinutes();
+        } else if (legs.size() == 1 && first.getDurationMinutes() != null) {
+            duration = first.getDurationMinutes();
+        } else {
+            return null;
+        }
+
+        long layover = legs.size() > 1
+                ? Duration.between(first.getArrivalTime(), last.getDepartureTime()).toMinutes()
+                : 0;
+        return new Itinerary(legs, totalFare, duration, layover);
+    }
+
+    private static Comparator<Itinerary> ranking(String sortBy, String sortOrder) {
+        Comparator<Itinerary> byPrice = Comparator.comparingLong(Itinerary::totalFareMinor);
+        Comparator<Itinerary> byDuration = Comparator.comparingLong(Itinerary::durationMinutes);
+        Comparator<Itinerary> byDeparture = Comparator.comparing(Itinerary::departureTime,
+                Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()));
+
+        Comparator<Itinerary> primary = switch (sortBy) {
+            case "DURATION" -> byDuration.thenComparing(byPrice);
+            case "DEPARTURE_TIME" -> byDeparture.thenComparing(byPrice);
+            default -> byPrice.thenComparing(byDuration);
+        };
+        if ("DESC".equals(sortOrder)) {
+            primary = primary.reversed();
+        }
+        // Cùng điểm xếp hạng thì ưu tiên ít điểm dừng hơn
+        return primary.thenComparingInt(Itinerary::stops);
+    }
+
+    private static final class LegFetch {
+        private final CompletableFuture<List<Flight>> firstLegs;
+        private final CompletableFuture<List<Flight>> secondLegs;
+        private volatile boolean timedOut;
+
+        private LegFetch(CompletableFuture<List<Flight>> firstLegs, CompletableFuture<List<Flight>> secondLegs) {
+            this.firstLegs = firstLegs;
+            this.secondLegs = secondLegs;
+        }
+    }
+
+    /**
+     * Giữ K hành trình tốt nhất: heap với phần tử kém nhất ở đỉnh, O(n log K).
+     */
+    private static final class TopK {
+        private final Comparator<Itinerary> ranking;
+        private final int limit;
+        private final PriorityQueue<Itinerary> heap;
+
+        private TopK(Comparator<Itinerary> ranking, int limit) {
+            this.ranking = ranking;
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, ranking.reversed());
+        }
+
+        void offer(Itinerary itinerary) {
+            if (heap.size() < limit) {
+                heap.offer(itinerary);
+            } else if (ranking.compare(itinerary, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(itinerary);
+            }
+        }
+
+        List<Itinerary> sorted() {
+            List<Itinerary> result = new ArrayList<>(heap);
+            result.sort(ranking);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.booking.booking_service.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingExpiryQueueService {
+    void schedule(String bookingId, LocalDateTime expiresAt);
+
+    void cancel(String bookingId);
+
+    int getShardCount();
+
+    List<String> claimDue(int shard, int batchSize);
+}
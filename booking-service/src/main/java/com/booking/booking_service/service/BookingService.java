@@ -3,8 +3,10 @@ package com.booking.booking_service.service;
 import com.booking.booking_service.dto.request.BookingRequest;
 import com.booking.booking_service.dto.request.SeatSelectionRequest;
 import com.booking.booking_service.dto.respone.BookingResponse;
+import com.booking.booking_service.dto.respone.WaitingRoomStatus;
 import com.booking.booking_service.entity.SeatLock;
 import com.booking.booking_service.utils.PaymentStatus;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
@@ -13,6 +15,18 @@ public interface BookingService {
     BookingResponse createBooking(BookingRequest request);
     List<SeatLock> selectSeats(SeatSelectionRequest request);
     PageResponse<BookingResponse> getUserBookings(Pageable pageable);
+
+    /**
+     * Keyset pagination theo (createdAt, id): chi phí mỗi trang không phụ thuộc vị trí trang.
+     */
+    CursorPageResponse<BookingResponse> getUserBookings(String cursor, int size, boolean includeTotal);
+
+    /**
+     * Vào waiting room của flight (xếp hàng nếu flight đang quá tải).
+     */
+    WaitingRoomStatus joinWaitingRoom(String flightId);
+
+    WaitingRoomStatus getWaitingRoomStatus(String flightId);
     BookingResponse getBookingByReference(String bookingReference);
     void cancelBooking(String bookingId, String reason);
     void confirmBooking(String bookingId);
@@ -5,12 +5,12 @@ import com.booking.booking_service.entity.Flight;
 
 public interface EmailNotificationService {
     /**
-     * Send booking confirmation email after successful booking creation
+     * Queue booking confirmation email after successful booking creation (sent after commit, asynchronously)
      */
     void sendBookingConfirmationEmail(Booking booking, Flight flight);
 
     /**
-     * Send booking cancellation email when booking is cancelled
+     * Queue booking cancellation email when booking is cancelled (sent after commit, asynchronously)
      */
     void sendBookingCancellationEmail(Booking booking, Flight flight, String cancellationReason);
 
@@ -0,0 +1,16 @@
+package com.booking.booking_service.service;
+
+import com.booking.booking_service.dto.respone.FlightImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FlightImportService {
+
+    enum Format { NDJSON, CSV }
+
+    /**
+     * Import lịch bay dạng stream (NDJSON hoặc CSV có header), đọc và ghi theo batch.
+     */
+    FlightImportResponse importFlights(InputStream input, Format format) throws IOException;
+}
@@ -3,11 +3,16 @@ package com.booking.booking_service.service;
 import com.booking.booking_service.dto.request.CreateFlightRequest;
 import com.booking.booking_service.dto.request.FlightSearchRequest;
 import com.booking.booking_service.dto.request.UpdateFlightRequest;
+import com.booking.booking_service.dto.respone.FareCalendarDay;
 import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.dto.respone.ItinerarySearchResponse;
 import com.booking.booking_service.dto.respone.SeatMapResponse;
+import com.booking.booking_service.utils.SeatClass;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
 
 import org.springframework.data.domain.Pageable;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface FlightService {
@@ -16,11 +21,23 @@ public interface FlightService {
     FlightResponse updateFlight(String flightId, UpdateFlightRequest request);
     void deleteFlight(String flightId);
     PageResponse<FlightResponse> getAllFlights(Pageable pageable);
+
+    /**
+     * Keyset pagination theo (createdAt, id); totalElements (nếu yêu cầu) là số ước lượng.
+     */
+    CursorPageResponse<FlightResponse> getAllFlights(String cursor, int size, boolean includeTotal);
     
     // Existing methods
     PageResponse<FlightResponse> searchFlights(FlightSearchRequest request, Pageable pageable);
+    ItinerarySearchResponse searchItineraries(FlightSearchRequest request, int limit);
+
+    /**
+     * Lịch giá theo ngày cho một route, đọc từ bản tóm tắt route/ngày (không đọc từng flight).
+     */
+    List<FareCalendarDay> getFareCalendar(String departureAirport, String arrivalAirport, LocalDate from, int days);
     FlightResponse getFlightById(String flightId);
     SeatMapResponse getFlightSeatMap(String flightId);
+    String getSeatMapETag(String flightId);
     boolean isSeatsAvailable(String flightId, List<String> seatNumbers);
-    void updateAvailableSeats(String flightId, int seatCount, boolean increase);
+    void updateAvailableSeats(String flightId, List<String> seatNumbers, SeatClass seatClass, boolean increase);
 }
@@ -1,124 +1,77 @@
 package com.booking.booking_service.service.Impl;
 
+import com.booking.booking_service.entity.OutboxEvent;
+import com.booking.booking_service.repository.OutboxEventRepository;
 import com.booking.booking_service.service.BookingEventPublisher;
+import com.booking.booking_service.utils.OutboxStatus;
 import com.booking.common_library.constants.KafkaTopics;
 import com.booking.common_library.entity.booking_event.*;
+import com.booking.common_library.util.SnowflakeIdGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.LocalDateTime;
 
+/**
+ * Ghi event vào outbox thay vì gửi thẳng lên Kafka: khi được gọi trong {@code BookingTransactions},
+ * event được commit cùng với thay đổi của booking. {@code OutboxRelay} gửi lên Kafka sau đó.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BookingEventPublisherImpl implements BookingEventPublisher {
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
 
     @Override
     public void publishBookingCreated(BookingCreatedEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(KafkaTopics.BOOKING_CREATED, event.getBookingId(), event);
-
-            future.whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("Failed to publish BookingCreatedEvent for booking: {}",
-                            event.getBookingId(), throwable);
-                } else {
-                    log.info("Successfully published BookingCreatedEvent for booking: {}",
-                            event.getBookingId());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Error publishing BookingCreatedEvent for booking: {}",
-                    event.getBookingId(), e);
-        }
+        enqueue(KafkaTopics.BOOKING_CREATED, event.getBookingId(), event);
     }
 
     @Override
     public void publishBookingConfirmed(BookingConfirmedEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(KafkaTopics.BOOKING_CONFIRMED, event.getBookingId(), event);
-
-            future.whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("Failed to publish BookingConfirmedEvent for booking: {}",
-                            event.getBookingId(), throwable);
-                } else {
-                    log.info("Successfully published BookingConfirmedEvent for booking: {}",
-                            event.getBookingId());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Error publishing BookingConfirmedEvent for booking: {}",
-                    event.getBookingId(), e);
-        }
+        enqueue(KafkaTopics.BOOKING_CONFIRMED, event.getBookingId(), event);
     }
 
     @Override
     public void publishBookingCancelled(BookingCancelledEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(KafkaTopics.BOOKING_CANCELLED, event.getBookingId(), event);
-
-            future.whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("Failed to publish BookingCancelledEvent for booking: {}",
-                            event.getBookingId(), throwable);
-                } else {
-                    log.info("Successfully published BookingCancelledEvent for booking: {}",
-                            event.getBookingId());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Error publishing BookingCancelledEvent for booking: {}",
-                    event.getBookingId(), e);
-        }
+        enqueue(KafkaTopics.BOOKING_CANCELLED, event.getBookingId(), event);
     }
 
     @Override
     public void publishBookingExpired(BookingExpiredEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(KafkaTopics.BOOKING_EXPIRED, event.getBookingId(), event);
-
-            future.whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("Failed to publish BookingExpiredEvent for booking: {}",
-                            event.getBookingId(), throwable);
-                } else {
-                    log.info("Successfully published BookingExpiredEvent for booking: {}",
-                            event.getBookingId());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Error publishing BookingExpiredEvent for booking: {}",
-                    event.getBookingId(), e);
-        }
+        enqueue(KafkaTopics.BOOKING_EXPIRED, event.getBookingId(), event);
     }
 
     @Override
     public void publishPaymentRequested(PaymentRequestedEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(KafkaTopics.PAYMENT_REQUESTED, String.valueOf(event.getBookingId()), event);
+        enqueue(KafkaTopics.PAYMENT_REQUESTED, String.valueOf(event.getBookingId()), event);
+    }
 
-            future.whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("Failed to publish PaymentRequestedEvent for booking: {}",
-                            event.getBookingId(), throwable);
-                } else {
-                    log.info("Successfully published PaymentRequestedEvent for booking: {}",
-                            event.getBookingId());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Error publishing PaymentRequestedEvent for booking: {}",
-                    event.getBookingId(), e);
+    private void enqueue(String topic, String bookingId, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
         }
+
+        long sequence = idGenerator.nextId();
+        outboxEventRepository.insert(OutboxEvent.builder()
+                .id(Long.toString(sequence))
+                .sequence(sequence)
+                .aggregateId(bookingId)
+                .topic(topic)
+                .payloadType(event.getClass().getName())
+                .payload(payload)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .createdAt(LocalDateTime.now())
+                .build());
+        log.debug("Queued {} for booking {} in outbox", event.getClass().getSimpleName(), bookingId);
     }
 }
@@ -0,0 +1,64 @@
+package com.booking.booking_service.service.Impl;
+
+import com.booking.booking_service.service.BookingExpiryQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Delay queue cho booking LOCKED: mỗi shard là một ZSET trên Redis (member = bookingId, score = lockExpiresAt).
+ * Chia shard để nhiều instance claim song song mà không tranh nhau trên cùng một key.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingExpiryQueueServiceImpl implements BookingExpiryQueueService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.booking.expiry.shards:8}")
+    private int shardCount;
+
+    private static final String BOOKING_EXPIRY_QUEUE_PREFIX = "booking_expiry:queue:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_DUE_ENTRIES_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/claim_due_entries.lua"), List.class);
+
+    @Override
+    public void schedule(String bookingId, LocalDateTime expiresAt) {
+        long dueAt = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        redisTemplate.opsForZSet().add(shardKey(bookingId), bookingId, dueAt);
+        log.debug("Scheduled expiry of booking {} at {}", bookingId, expiresAt);
+    }
+
+    @Override
+    public void cancel(String bookingId) {
+        redisTemplate.opsForZSet().remove(shardKey(bookingId), bookingId);
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> claimDue(int shard, int batchSize) {
+        List<String> bookingIds = redisTemplate.execute(CLAIM_DUE_ENTRIES_SCRIPT,
+                List.of(BOOKING_EXPIRY_QUEUE_PREFIX + shard), System.currentTimeMillis(), batchSize);
+        return bookingIds != null ? bookingIds : List.of();
+    }
+
+    private String shardKey(String bookingId) {
+        return BOOKING_EXPIRY_QUEUE_PREFIX + Math.floorMod(bookingId.hashCode(), shardCount);
+    }
+}
@@ -1,18 +1,27 @@
 package com.booking.booking_service.service.Impl;
 
+import com.booking.booking_service.config.BookingTransactions;
 import com.booking.booking_service.dto.request.BookingRequest;
 import com.booking.booking_service.dto.request.SeatSelectionRequest;
 import com.booking.booking_service.dto.request.PassengerRequest;
 import com.booking.booking_service.dto.respone.BookingResponse;
+import com.booking.booking_service.dto.respone.WaitingRoomStatus;
 import com.booking.booking_service.entity.Booking;
 import com.booking.booking_service.entity.Flight;
 import com.booking.booking_service.entity.SeatLock;
 import com.booking.booking_service.entity.PassengerInfo;
+import com.booking.booking_service.pricing.FareEngine;
+import com.booking.booking_service.pricing.FareTable;
+import com.booking.booking_service.pricing.PassengerCounts;
+import com.booking.booking_service.pricing.PassengerType;
 import com.booking.booking_service.repository.BookingRepository;
 import com.booking.booking_service.security.UserPrincipal;
 import com.booking.booking_service.service.*;
 import com.booking.booking_service.utils.BookingStatus;
 import com.booking.booking_service.utils.PaymentStatus;
+import com.booking.booking_service.utils.SeatClass;
+import com.booking.booking_service.waitingroom.WaitingRoom;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
 import com.booking.common_library.entity.booking_event.BookingCancelledEvent;
 import com.booking.common_library.entity.booking_event.BookingConfirmedEvent;
@@ -20,17 +29,22 @@ import com.booking.common_library.entity.booking_event.BookingCreatedEvent;
 import com.booking.common_library.entity.booking_event.BookingExpiredEvent;
 import com.booking.common_library.exception.ResourceNotFoundException;
 import com.booking.common_library.exception.BusinessException;
+import com.booking.common_library.util.PageCursor;
+import com.booking.common_library.util.SnowflakeIdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
@@ -44,13 +58,22 @@ public class BookingServiceImpl implements BookingService {
     private final SeatLockService seatLockService;
     private final EmailNotificationService emailNotificationService;
     private final BookingEventPublisher eventPublisher;
+    private final BookingExpiryQueueService bookingExpiryQueueService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final FareEngine fareEngine;
+    private final WaitingRoom waitingRoom;
+    private final BookingTransactions bookingTransactions;
+
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
 
     @Override
-    @Transactional
     public BookingResponse createBooking(BookingRequest request) {
         log.info("Creating booking for flight: {} with {} passengers",
                 request.getFlightId(), request.getPassengers().size());
 
+        // Flight đang quá tải thì xếp hàng trước khi đụng tới seat lock
+        waitingRoom.enter(request.getFlightId(), getCurrentUserId());
+
         try {
             // Validate flight exists and is available
             var flightResponse = flightService.getFlightById(request.getFlightId());
@@ -70,8 +93,15 @@ public class BookingServiceImpl implements BookingService {
                 throw new BusinessException("You already have seats locked for this flight. Please complete or cancel your existing booking.");
             }
 
-            // Calculate total amount based on seat class and number of seats
-            BigDecimal totalAmount = calculateTotalAmount(flightResponse, request.getSeatClass(), request.getSelectedSeats().size());
+            // Giá theo bảng giá của chuyến bay: bậc giá lấy từ quote lúc tìm kiếm (nếu có) hoặc theo tải ghế hiện tại
+            SeatClass seatClass = resolveSeatClass(request.getSeatClass());
+            FareTable fareTable = fareEngine.tableFor(flightResponse);
+            int fareTier = request.getFareQuote() != null && !request.getFareQuote().isBlank()
+                    ? fareEngine.redeemQuote(request.getFareQuote(), fareTable, seatClass)
+                    : fareTable.tierFor(seatClass, fareEngine.availableSeats(flightResponse, seatClass));
+            PassengerCounts passengerCounts = countPassengers(request,
+                    flightResponse.getDepartureTime() != null ? flightResponse.getDepartureTime().toLocalDate() : null);
+            BigDecimal totalAmount = fareEngine.toAmount(fareTable.total(seatClass, fareTier, passengerCounts));
 
             // Map contact info
             var contactInfo = com.booking.booking_service.entity.ContactInfo.builder()
@@ -91,16 +121,16 @@ public class BookingServiceImpl implements BookingService {
                     .selectedSeats(request.getSelectedSeats())
                     .seatClass(request.getSeatClass())
                     .totalAmount(totalAmount)
+                    .fareTableVersion(fareTable.getVersion())
+                    .fareTier(fareTier)
                     .bookingStatus(BookingStatus.LOCKED)
                     .paymentStatus(PaymentStatus.PENDING)
                     .contactInfo(contactInfo)
                     .specialRequests(request.getSpecialRequests())
                     .lockExpiresAt(LocalDateTime.now().plusMinutes(15))
                     .build();
-
-            // Save booking
-            booking = bookingRepository.save(booking);
-            log.info("Booking created with ID: {} and reference: {}", booking.getId(), booking.getBookingReference());
+            // Không có Mongo auditing: set createdAt để sort / keyset pagination theo (createdAt, _id)
+            booking.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
 
             // Lock seats
             String sessionId = UUID.randomUUID().toString();
@@ -112,10 +142,14 @@ public class BookingServiceImpl implements BookingService {
             );
             log.info("Locked {} seats for booking: {}", seatLocks.size(), booking.getId());
 
-            // Update flight available seats
-            flightService.updateAvailableSeats(request.getFlightId(), request.getSelectedSeats().size(), false);
+            // Update flight available seats (conditional, fail nếu không đủ ghế) - ngoài transaction
+            try {
+                flightService.updateAvailableSeats(request.getFlightId(), request.getSelectedSeats(), seatClass, false);
+            } catch (BusinessException e) {
+                seatLockService.releaseUserLocks(request.getFlightId(), userId);
+                throw e;
+            }
 
-            // Publish booking created event
             BookingCreatedEvent event = BookingCreatedEvent.builder()
                     .bookingId(booking.getId())
                     .bookingReference(booking.getBookingReference())
@@ -129,7 +163,22 @@ public class BookingServiceImpl implements BookingService {
                     .passengerPhone(booking.getContactInfo() != null ? booking.getContactInfo().getPhoneNumber() : null)
                     .build();
 
-            eventPublisher.publishBookingCreated(event);
+            // Booking và event BookingCreated commit cùng nhau; lỗi thì trả lại ghế đã giữ
+            Booking newBooking = booking;
+            try {
+                booking = bookingTransactions.execute(() -> {
+                    Booking saved = bookingRepository.save(newBooking);
+                    eventPublisher.publishBookingCreated(event);
+                    return saved;
+                });
+            } catch (RuntimeException e) {
+                releaseHeldSeats(request.getFlightId(), request.getSelectedSeats(), seatClass, userId);
+                throw e;
+            }
+            log.info("Booking created with ID: {} and reference: {}", booking.getId(), booking.getBookingReference());
+
+            // Tự expire booking nếu chưa thanh toán trước lockExpiresAt
+            bookingExpiryQueueService.schedule(booking.getId(), booking.getLockExpiresAt());
 
             // Send confirmation email
             try {
@@ -151,10 +200,11 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
     public List<SeatLock> selectSeats(SeatSelectionRequest request) {
         log.info("Selecting seats {} for flight: {}", request.getSeatNumbers(), request.getFlightId());
 
+        waitingRoom.enter(request.getFlightId(), getCurrentUserId());
+
         // Validate flight exists
         flightService.getFlightById(request.getFlightId());
 
@@ -195,6 +245,51 @@ public class BookingServiceImpl implements BookingService {
                 .build();
     }
 
+    @Override
+    public CursorPageResponse<BookingResponse> getUserBookings(String cursor, int size, boolean includeTotal) {
+        Long userId = getCurrentUserId();
+        log.info("Getting bookings for user: {} after cursor: {}", userId, cursor);
+
+        // Lấy dư 1 phần tử để biết còn trang sau, không cần count
+        Pageable pageable = PageRequest.of(0, size + 1, KEYSET_SORT);
+        List<Booking> bookings;
+        if (cursor == null || cursor.isBlank()) {
+            bookings = bookingRepository.findUserBookingsFirstPage(userId, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            bookings = after.createdAt() != null
+                    ? bookingRepository.findUserBookingsAfter(userId, after.createdAt(), after.id(), pageable)
+                    : bookingRepository.findUndatedUserBookingsAfter(userId, after.id(), pageable);
+        }
+
+        boolean hasNext = bookings.size() > size;
+        List<Booking> page = hasNext ? bookings.subList(0, size) : bookings;
+        String nextCursor = null;
+        if (hasNext) {
+            Booking last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<BookingResponse>builder()
+                .content(page.stream().map(this::convertToBookingResponse).toList())
+                .size(size)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .totalElements(includeTotal ? bookingRepository.countByUserId(userId) : null)
+                .totalEstimated(false)
+                .build();
+    }
+
+    @Override
+    public WaitingRoomStatus joinWaitingRoom(String flightId) {
+        return waitingRoom.join(flightId, getCurrentUserId());
+    }
+
+    @Override
+    public WaitingRoomStatus getWaitingRoomStatus(String flightId) {
+        return waitingRoom.status(flightId, getCurrentUserId());
+    }
+
     @Override
     public BookingResponse getBookingById(String bookingId) {
         log.info("Getting booking by ID: {}", bookingId);
@@ -228,7 +323,6 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
     public void cancelBooking(String bookingId, String reason) {
         log.info("Cancelling booking: {} with reason: {}", bookingId, reason);
 
@@ -246,28 +340,15 @@ public class BookingServiceImpl implements BookingService {
             throw new BusinessException("Booking is already cancelled or expired");
         }
 
-        if (booking.getBookingStatus() == BookingStatus.CONFIRMED && booking.getPaymentStatus() == PaymentStatus.COMPLETED) {
-            // This is a paid booking, requires refund
-            booking.setBookingStatus(BookingStatus.CANCELLED);
-            booking.setCancellationReason(reason);
-            booking.setCancelledAt(LocalDateTime.now());
-        } else {
-            // Unpaid booking, can be cancelled directly
-            booking.setBookingStatus(BookingStatus.CANCELLED);
-            booking.setCancellationReason(reason);
-            booking.setCancelledAt(LocalDateTime.now());
-        }
-
-        booking = bookingRepository.save(booking);
-
-        // Release seat locks
-        seatLockService.releaseUserLocks(booking.getFlightId(), booking.getUserId());
-
-        // Update flight available seats
-        flightService.updateAvailableSeats(booking.getFlightId(), booking.getSelectedSeats().size(), true);
+        BookingStatus previousStatus = booking.getBookingStatus();
+        PaymentStatus previousPaymentStatus = booking.getPaymentStatus();
+        LocalDateTime cancelledAt = LocalDateTime.now();
+        booking.setBookingStatus(BookingStatus.CANCELLED);
+        booking.setCancellationReason(reason);
+        booking.setCancelledAt(cancelledAt);
 
         // Determine if refund is required
-        boolean refundRequired = booking.getPaymentStatus() == PaymentStatus.COMPLETED;
+        boolean refundRequired = previousPaymentStatus == PaymentStatus.COMPLETED;
 
         // Publish booking cancelled event
         BookingCancelledEvent event = BookingCancelledEvent.builder()
@@ -277,12 +358,33 @@ public class BookingServiceImpl implements BookingService {
                 .flightId(booking.getFlightId())
                 .seatNumbers(booking.getSelectedSeats())
                 .cancellationReason(reason)
-                .cancelledAt(LocalDateTime.now())
+                .cancelledAt(cancelledAt)
                 .refundRequired(refundRequired)
                 .transactionId(null)
                 .build();
 
-        eventPublisher.publishBookingCancelled(event);
+        // Chỉ hủy nếu trạng thái vẫn như lúc đọc: expire / confirm chạy song song thì không trả ghế hai lần
+        boolean cancelled = bookingTransactions.execute(() -> {
+            if (bookingRepository.markCancelled(bookingId, previousStatus, previousPaymentStatus, reason, cancelledAt) == 0) {
+                return false;
+            }
+            eventPublisher.publishBookingCancelled(event);
+            return true;
+        });
+        if (!cancelled) {
+            throw new BusinessException("Booking was updated concurrently, please try again", "BOOKING_CONFLICT");
+        }
+        bookingExpiryQueueService.cancel(bookingId);
+
+        // Release seat locks: booking đã confirm giữ lock CONFIRMED theo bookingId, booking chưa confirm giữ lock ACTIVE
+        if (previousStatus == BookingStatus.CONFIRMED || previousStatus == BookingStatus.COMPLETED) {
+            seatLockService.releaseBookingLocks(booking.getFlightId(), bookingId, booking.getSelectedSeats());
+        } else {
+            seatLockService.releaseUserLocks(booking.getFlightId(), booking.getUserId());
+        }
+
+        // Update flight available seats
+        flightService.updateAvailableSeats(booking.getFlightId(), booking.getSelectedSeats(), seatClassOf(booking), true);
 
         // Send cancellation email
         try {
@@ -297,7 +399,6 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
     public void confirmBooking(String bookingId) {
         log.info("Confirming booking: {}", bookingId);
 
@@ -310,19 +411,10 @@ public class BookingServiceImpl implements BookingService {
         }
 
         // Confirm booking
+        LocalDateTime confirmedAt = LocalDateTime.now();
         booking.setBookingStatus(BookingStatus.CONFIRMED);
         booking.setPaymentStatus(PaymentStatus.COMPLETED);
-        booking.setConfirmedAt(LocalDateTime.now());
-
-        booking = bookingRepository.save(booking);
-
-        // Confirm seat locks (convert to permanent bookings)
-        seatLockService.confirmSeatLocks(
-                booking.getFlightId(),
-                booking.getSelectedSeats(),
-                booking.getUserId(),
-                booking.getId()
-        );
+        booking.setConfirmedAt(confirmedAt);
 
         // Publish booking confirmed event
         BookingConfirmedEvent event = BookingConfirmedEvent.builder()
@@ -333,16 +425,35 @@ public class BookingServiceImpl implements BookingService {
                 .seatNumbers(booking.getSelectedSeats())
                 .transactionId(null)
                 .paidAmount(booking.getTotalAmount())
-                .confirmedAt(LocalDateTime.now())
+                .confirmedAt(confirmedAt)
                 .build();
 
-        eventPublisher.publishBookingConfirmed(event);
+        // Chỉ confirm booking còn đang giữ ghế: expire / cancel đã thắng thì không ghi đè
+        boolean confirmed = bookingTransactions.execute(() -> {
+            if (bookingRepository.markConfirmed(bookingId, confirmedAt) == 0) {
+                return false;
+            }
+            eventPublisher.publishBookingConfirmed(event);
+            return true;
+        });
+        if (!confirmed) {
+            log.warn("Booking {} changed status before it could be confirmed", bookingId);
+            return;
+        }
+        bookingExpiryQueueService.cancel(bookingId);
+
+        // Confirm seat locks (convert to permanent bookings)
+        seatLockService.confirmSeatLocks(
+                booking.getFlightId(),
+                booking.getSelectedSeats(),
+                booking.getUserId(),
+                booking.getId()
+        );
 
         log.info("Booking confirmed successfully: {}", bookingId);
     }
 
     @Override
-    @Transactional
     public void expireBooking(String bookingId) {
         log.info("Expiring booking: {}", bookingId);
 
@@ -357,14 +468,6 @@ public class BookingServiceImpl implements BookingService {
         // Expire booking
         booking.setBookingStatus(BookingStatus.EXPIRED);
 
-        booking = bookingRepository.save(booking);
-
-        // Release seat locks
-        seatLockService.releaseUserLocks(booking.getFlightId(), booking.getUserId());
-
-        // Update flight available seats
-        flightService.updateAvailableSeats(booking.getFlightId(), booking.getSelectedSeats().size(), true);
-
         // Publish booking expired event
         BookingExpiredEvent event = BookingExpiredEvent.builder()
                 .bookingId(booking.getId())
@@ -376,29 +479,41 @@ public class BookingServiceImpl implements BookingService {
                 .reason("Payment timeout")
                 .build();
 
-        eventPublisher.publishBookingExpired(event);
+        // Chỉ expire booking còn LOCKED: payment confirm / user cancel đã thắng thì không trả ghế
+        boolean expired = bookingTransactions.execute(() -> {
+            if (bookingRepository.markExpired(bookingId) == 0) {
+                return false;
+            }
+            eventPublisher.publishBookingExpired(event);
+            return true;
+        });
+        if (!expired) {
+            log.warn("Booking {} changed status before it could be expired", bookingId);
+            return;
+        }
+
+        // Release seat locks
+        seatLockService.releaseUserLocks(booking.getFlightId(), booking.getUserId());
+
+        // Update flight available seats
+        flightService.updateAvailableSeats(booking.getFlightId(), booking.getSelectedSeats(), seatClassOf(booking), true);
 
         log.info("Booking expired successfully: {}", bookingId);
     }
 
     @Override
-    @Transactional
     public void updateBookingPaymentStatus(String bookingId, PaymentStatus paymentStatus) {
         log.info("Updating payment status for booking: {} to {}", bookingId, paymentStatus);
 
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new ResourceNotFoundException("Booking not found: " + bookingId));
-
-        booking.setPaymentStatus(paymentStatus);
-
-        if (paymentStatus == PaymentStatus.COMPLETED) {
-            booking.setBookingStatus(BookingStatus.CONFIRMED);
-            booking.setConfirmedAt(LocalDateTime.now());
-        } else if (paymentStatus == PaymentStatus.FAILED) {
-            // Keep bookingStatus as LOCKED to allow retry; scheduled job will expire if needed
+        // Chỉ ghi payment status; chuyển sang CONFIRMED do confirmBooking làm (có điều kiện).
+        // FAILED giữ bookingStatus LOCKED để cho phép thanh toán lại; job expiry sẽ expire nếu cần
+        if (bookingRepository.updatePaymentStatusIfOpen(bookingId, paymentStatus) == 0) {
+            if (!bookingRepository.existsById(bookingId)) {
+                throw new ResourceNotFoundException("Booking not found: " + bookingId);
+            }
+            log.warn("Booking {} is no longer open, payment status {} not applied", bookingId, paymentStatus);
+            return;
         }
-
-        bookingRepository.save(booking);
         log.info("Payment status updated for booking: {}", bookingId);
     }
 
@@ -421,12 +536,28 @@ public class BookingServiceImpl implements BookingService {
         return 1L; // Default for testing
     }
 
+    /**
+     * Trả lại counter ghế và seat lock khi booking không được lưu.
+     */
+    private void releaseHeldSeats(String flightId, List<String> seatNumbers, SeatClass seatClass, Long userId) {
+        try {
+            flightService.updateAvailableSeats(flightId, seatNumbers, seatClass, true);
+        } catch (Exception e) {
+            log.error("Failed to restore available seats {} on flight {}: {}", seatNumbers, flightId, e.getMessage());
+        }
+        try {
+            seatLockService.releaseUserLocks(flightId, userId);
+        } catch (Exception e) {
+            log.error("Failed to release seat locks of user {} on flight {}: {}", userId, flightId, e.getMessage());
+        }
+    }
+
     private String generateBookingId() {
-        return "BK-" + System.currentTimeMillis();
+        return idGenerator.nextId("BK-");
     }
 
     private String generateBookingReference() {
-        return "VN" + System.currentTimeMillis();
+        return idGenerator.nextBase32("VN");
     }
 
     private BookingResponse convertToBookingResponse(Booking booking) {
@@ -467,20 +598,41 @@ public class BookingServiceImpl implements BookingService {
                 .build();
     }
 
-    private BigDecimal calculateTotalAmount(com.booking.booking_service.dto.respone.FlightResponse flight,
-                                            String seatClass,
-                                            int numberOfSeats) {
-        BigDecimal pricePerSeat;
-        if (seatClass == null) {
-            pricePerSeat = flight.getBasePrice();
-        } else if ("BUSINESS".equalsIgnoreCase(seatClass)) {
-            pricePerSeat = flight.getBusinessPrice() != null ? flight.getBusinessPrice() : flight.getBasePrice();
-        } else if ("FIRST".equalsIgnoreCase(seatClass)) {
-            pricePerSeat = flight.getFirstPrice() != null ? flight.getFirstPrice() : flight.getBasePrice();
-        } else {
-            pricePerSeat = flight.getBasePrice();
+    // Booking cũ có thể không lưu / lưu sai hạng ghế: null để counter theo hạng suy ra từ số ghế
+    private static SeatClass seatClassOf(Booking booking) {
+        try {
+            return SeatClass.valueOf(booking.getSeatClass().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static SeatClass resolveSeatClass(String seatClass) {
+        try {
+            return SeatClass.valueOf(seatClass.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BusinessException("Invalid seat class: " + seatClass);
+        }
+    }
+
+    /**
+     * Trẻ em và em bé xác định theo ngày sinh tại ngày bay; các ghế còn lại tính giá người lớn.
+     */
+    private static PassengerCounts countPassengers(BookingRequest request, LocalDate travelDate) {
+        int children = 0;
+        int infants = 0;
+        if (request.getPassengers() != null) {
+            for (PassengerRequest passenger : request.getPassengers()) {
+                switch (PassengerType.of(passenger.getDateOfBirth(), travelDate)) {
+                    case CHILD -> children++;
+                    case INFANT -> infants++;
+                    default -> { }
+                }
+            }
         }
-        return pricePerSeat.multiply(BigDecimal.valueOf(numberOfSeats));
+        int seats = request.getSelectedSeats().size();
+        children = Math.min(children, seats);
+        return new PassengerCounts(seats - children, children, infants);
     }
 
     private List<PassengerInfo> mapPassengers(List<PassengerRequest> passengerRequests) {
@@ -3,32 +3,25 @@ package com.booking.booking_service.service.Impl;
 import com.booking.booking_service.entity.Booking;
 import com.booking.booking_service.entity.Flight;
 import com.booking.booking_service.entity.PassengerInfo;
+import com.booking.booking_service.notification.EmailDispatchQueue;
 import com.booking.booking_service.service.EmailNotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Dựng nội dung email từ booking và đưa vào {@link EmailDispatchQueue}; việc gọi email service chạy nền.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailNotificationServiceImpl implements EmailNotificationService {
 
-    private final RestTemplate restTemplate;
-
-    @Value("${services.auth-service.url:http://localhost:8081}")
-    private String authServiceUrl;
+    private final EmailDispatchQueue emailDispatchQueue;
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
@@ -59,8 +52,8 @@ public class EmailNotificationServiceImpl implements EmailNotificationService {
             emailData.put("totalAmount", booking.getTotalAmount().toString());
             emailData.put("seatNumbers", seatNumbers);
 
-            callEmailService("/api/emails/booking-confirmation", emailData);
-            log.info("Booking confirmation email triggered for booking: {} to email: {}",
+            emailDispatchQueue.submit("/api/emails/booking-confirmation", emailData, booking.getBookingReference());
+            log.info("Booking confirmation email queued for booking: {} to email: {}",
                     booking.getBookingReference(), toEmail);
 
         } catch (Exception e) {
@@ -93,8 +86,8 @@ public class EmailNotificationServiceImpl implements EmailNotificationService {
             emailData.put("departureTime", departureTime);
             emailData.put("cancellationReason", cancellationReason);
 
-            callEmailService("/api/emails/booking-cancellation", emailData);
-            log.info("Booking cancellation email triggered for booking: {} to email: {}",
+            emailDispatchQueue.submit("/api/emails/booking-cancellation", emailData, booking.getBookingReference());
+            log.info("Booking cancellation email queued for booking: {} to email: {}",
                     booking.getBookingReference(), toEmail);
 
         } catch (Exception e) {
@@ -136,32 +129,4 @@ public class EmailNotificationServiceImpl implements EmailNotificationService {
                 booking.getBookingReference());
         return null;
     }
-
-    /**
-     * Call external email service to send emails
-     */
-    private void callEmailService(String endpoint, Map<String, String> emailData) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(emailData, headers);
-            
-            String emailServiceUrl = authServiceUrl + endpoint;
-            
-            restTemplate.exchange(
-                emailServiceUrl,
-                HttpMethod.POST,
-                request,
-                String.class
-            );
-            
-            log.debug("Email service called successfully at endpoint: {}", endpoint);
-            
-        } catch (Exception e) {
-            log.error("Failed to call email service at endpoint: {}", endpoint, e);
-            // Note: We don't throw the exception here to avoid breaking the main flow
-            // The calling method will handle the error logging
-        }
-    }
-}
\ No newline at end of file
+}
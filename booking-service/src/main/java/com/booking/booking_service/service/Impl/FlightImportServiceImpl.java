@@ -0,0 +1,358 @@
+package com.booking.booking_service.service.Impl;
+
+import com.booking.booking_service.calendar.FareCalendar;
+import com.booking.booking_service.cache.FlightSearchCache;
+import com.booking.booking_service.dto.request.CreateFlightRequest;
+import com.booking.booking_service.dto.respone.FlightImportResponse;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.search.FlightSearchIndex;
+import com.booking.booking_service.service.FlightImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Import lịch bay theo stream: đọc từng dòng, validate, bỏ trùng theo tập flightNumber đã load sẵn,
+ * ghi MongoDB bằng BulkOperations theo batch. Search cache chỉ bị invalidate một lần cho mỗi route/ngày bay
+ * sau khi import xong, các instance khác được báo rebuild search index qua Redis pub/sub.
+ */
+@Slf4j
+@Service
+public class FlightImportServiceImpl implements FlightImportService {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final FlightSearchCache searchCache;
+    private final FlightSearchIndex flightSearchIndex;
+    private final FareCalendar fareCalendar;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final Counter insertedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+    private final Counter failedCounter;
+
+    @Value("${app.booking.flight-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.booking.flight-import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public FlightImportServiceImpl(MongoTemplate mongoTemplate,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   FlightSearchCache searchCache,
+                                   FlightSearchIndex flightSearchIndex,
+                                   FareCalendar fareCalendar,
+                                   RedisTemplate<String, Object> redisTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.searchCache = searchCache;
+        this.flightSearchIndex = flightSearchIndex;
+        this.fareCalendar = fareCalendar;
+        this.redisTemplate = redisTemplate;
+        this.insertedCounter = importRows(meterRegistry, "inserted");
+        this.duplicateCounter = importRows(meterRegistry, "duplicate");
+        this.invalidCounter = importRows(meterRegistry, "invalid");
+        this.failedCounter = importRows(meterRegistry, "failed");
+    }
+
+    @Override
+    public FlightImportResponse importFlights(InputStream input, Format format) throws IOException {
+        long startedAt = System.nanoTime();
+        ImportRun run = new ImportRun(loadFlightNumbers());
+        log.info("Starting {} flight import ({} existing flight numbers)", format, run.knownFlightNumbers.size());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line).stream().map(String::trim).toList();
+                    continue;
+                }
+
+                run.totalRows++;
+                CreateFlightRequest request;
+                try {
+                    request = format == Format.CSV
+                            ? fromCsv(header, parseCsvLine(line))
+                            : objectMapper.readValue(line, CreateFlightRequest.class);
+                } catch (Exception e) {
+                    run.reject(lineNumber, null, "Cannot parse row: " + e.getMessage());
+                    continue;
+                }
+                accept(run, lineNumber, request, startedAt);
+            }
+            flush(run, startedAt);
+        } finally {
+            afterImport(run);
+        }
+
+        long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+        double rowsPerSecond = durationMs > 0 ? run.totalRows * 1000.0 / durationMs : run.totalRows;
+        log.info("Flight import finished: {} rows, {} inserted, {} duplicates, {} invalid, {} failed in {} ms ({} rows/s)",
+                run.totalRows, run.inserted, run.duplicates, run.invalid, run.failed, durationMs, Math.round(rowsPerSecond));
+
+        return FlightImportResponse.builder()
+                .totalRows(run.totalRows)
+                .inserted(run.inserted)
+                .duplicates(run.duplicates)
+                .invalid(run.invalid)
+                .failed(run.failed)
+                .affectedRouteDays(run.routeDays.size())
+                .durationMs(durationMs)
+                .rowsPerSecond(rowsPerSecond)
+                .errors(run.errors)
+                .build();
+    }
+
+    private void accept(ImportRun run, long lineNumber, CreateFlightRequest request, long startedAt) {
+        Set<ConstraintViolation<CreateFlightRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            run.reject(lineNumber, request.getFlightNumber(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return;
+        }
+        if (!run.knownFlightNumbers.add(request.getFlightNumber())) {
+            run.duplicate(lineNumber, request.getFlightNumber());
+            return;
+        }
+
+        Flight flight = FlightServiceImpl.toFlight(request, run.importedAt);
+        flight.setId(new ObjectId().toHexString());
+        run.batch.add(new PendingRow(lineNumber, flight));
+        if (run.batch.size() >= batchSize) {
+            flush(run, startedAt);
+        }
+    }
+
+    private void flush(ImportRun run, long startedAt) {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        List<Flight> flights = run.batch.stream().map(PendingRow::flight).toList();
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            BulkWriteResult result = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flight.class)
+                    .insert(flights)
+                    .execute();
+            run.inserted += result.getInsertedCount();
+            insertedCounter.increment(result.getInsertedCount());
+        } catch (BulkOperationException e) {
+            run.inserted += e.getResult().getInsertedCount();
+            insertedCounter.increment(e.getResult().getInsertedCount());
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                PendingRow row = run.batch.get(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                    run.duplicate(row.line(), row.flight().getFlightNumber()); // Được tạo song song qua API
+                } else {
+                    run.fail(row.line(), row.flight().getFlightNumber(), error.getMessage());
+                }
+            }
+        }
+
+        List<Flight> insertedFlights = new ArrayList<>(flights.size());
+        for (int i = 0; i < flights.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                Flight flight = flights.get(i);
+                run.routeDays.add(new RouteDay(flight.getDepartureAirport(), flight.getArrivalAirport(),
+                        flight.getDepartureTime().toLocalDate()));
+                flightSearchIndex.upsert(flight);
+                insertedFlights.add(flight);
+            }
+        }
+        fareCalendar.onFlightsAdded(insertedFlights);
+        run.batch.clear();
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        log.info("Flight import progress: {} rows read, {} inserted ({} rows/s)",
+                run.totalRows, run.inserted, run.totalRows * 1000 / elapsedMs);
+    }
+
+    /**
+     * Invalidate search cache một lần cho mỗi route/ngày bay, kể cả khi import dừng giữa chừng.
+     */
+    private void afterImport(ImportRun run) {
+        for (RouteDay routeDay : run.routeDays) {
+            try {
+                searchCache.invalidate(routeDay.departureAirport(), routeDay.arrivalAirport(), routeDay.departureDate());
+            } catch (Exception e) {
+                log.warn("Cannot invalidate search cache for {}: {}", routeDay, e.getMessage());
+            }
+        }
+        if (run.inserted > 0) {
+            try {
+                redisTemplate.convertAndSend(FlightSearchIndex.REBUILD_CHANNEL, "flight-import");
+            } catch (Exception e) {
+                log.warn("Cannot publish search index rebuild after flight import: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Set<String> loadFlightNumbers() {
+        Query query = new Query();
+        query.fields().include("flightNumber");
+        Set<String> flightNumbers = new HashSet<>();
+        try (Stream<Flight> flights = mongoTemplate.stream(query, Flight.class)) {
+            flights.forEach(flight -> flightNumbers.add(flight.getFlightNumber()));
+        }
+        return flightNumbers;
+    }
+
+    private CreateFlightRequest fromCsv(List<String> header, List<String> values) {
+        if (header == null) {
+            throw new IllegalArgumentException("Missing CSV header");
+        }
+        // Cột để trống coi như không có giá trị; seatConfiguration không hỗ trợ trong CSV
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (!value.isEmpty()) {
+                row.put(header.get(i), value);
+            }
+        }
+        return objectMapper.convertValue(row, CreateFlightRequest.class);
+    }
+
+    /**
+     * Tách một dòng CSV (RFC 4180, không hỗ trợ xuống dòng trong field).
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Counter importRows(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.flight.import.rows")
+                .description("Rows processed by the flight schedule import")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record PendingRow(long line, Flight flight) {
+    }
+
+    private record RouteDay(String departureAirport, String arrivalAirport, LocalDate departureDate) {
+    }
+
+    /**
+     * Trạng thái của một lần import.
+     */
+    private class ImportRun {
+        private final Set<String> knownFlightNumbers;
+        private final LocalDateTime importedAt = LocalDateTime.now();
+        private final List<PendingRow> batch = new ArrayList<>();
+        private final Set<RouteDay> routeDays = new LinkedHashSet<>();
+        private final List<FlightImportResponse.RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long inserted;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+
+        private ImportRun(Set<String> knownFlightNumbers) {
+            this.knownFlightNumbers = knownFlightNumbers;
+        }
+
+        private void reject(long line, String flightNumber, String message) {
+            invalid++;
+            invalidCounter.increment();
+            report(line, flightNumber, message);
+        }
+
+        private void duplicate(long line, String flightNumber) {
+            duplicates++;
+            duplicateCounter.increment();
+            report(line, flightNumber, "Flight number already exists");
+        }
+
+        private void fail(long line, String flightNumber, String message) {
+            failed++;
+            failedCounter.increment();
+            report(line, flightNumber, message);
+        }
+
+        private void report(long line, String flightNumber, String message) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(FlightImportResponse.RowError.builder()
+                        .line(line)
+                        .flightNumber(flightNumber)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
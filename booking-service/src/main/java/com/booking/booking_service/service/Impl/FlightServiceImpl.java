@@ -1,33 +1,59 @@
 package com.booking.booking_service.service.Impl;
 
+import com.booking.booking_service.calendar.FareCalendar;
+import com.booking.booking_service.cache.CacheCodec;
+import com.booking.booking_service.cache.CachedType;
+import com.booking.booking_service.cache.FlightNearCache;
+import com.booking.booking_service.cache.FlightSeatCounters;
+import com.booking.booking_service.cache.FlightSearchCache;
+import com.booking.booking_service.cache.SeatMapCache;
 import com.booking.booking_service.dto.request.CreateFlightRequest;
 import com.booking.booking_service.dto.request.FlightSearchRequest;
 import com.booking.booking_service.dto.request.UpdateFlightRequest;
+import com.booking.booking_service.dto.respone.FareCalendarDay;
 import com.booking.booking_service.dto.respone.FlightResponse;
+import com.booking.booking_service.dto.respone.ItineraryResponse;
+import com.booking.booking_service.dto.respone.ItinerarySearchResponse;
 import com.booking.booking_service.dto.respone.SeatMapResponse;
 import com.booking.booking_service.entity.*;
+import com.booking.booking_service.inventory.SeatInventory;
+import com.booking.booking_service.inventory.SeatLayout;
 import com.booking.booking_service.repository.FlightRepository;
-import com.booking.booking_service.repository.SeatLockRepository;
+import com.booking.booking_service.pricing.FareEngine;
+import com.booking.booking_service.pricing.FareTable;
+import com.booking.booking_service.pricing.PassengerCounts;
+import com.booking.booking_service.search.FlightSearchIndex;
+import com.booking.booking_service.search.ItinerarySearchEngine;
 import com.booking.booking_service.security.UserPrincipal;
 import com.booking.booking_service.service.FlightService;
+import com.booking.booking_service.service.SeatInventoryService;
+import com.booking.booking_service.utils.SeatClass;
 import com.booking.booking_service.utils.SeatStatus;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.dto.PageResponse;
+import com.booking.common_library.exception.BusinessException;
 import com.booking.common_library.exception.ResourceNotFoundException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.booking.common_library.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -36,13 +62,21 @@ import java.util.concurrent.TimeUnit;
 public class FlightServiceImpl implements FlightService {
 
     private final FlightRepository flightRepository;
-    private final SeatLockRepository seatLockRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatMapCache seatMapCache;
+    private final FlightNearCache flightNearCache;
+    private final FlightSearchCache searchCache;
+    private final FlightSearchIndex flightSearchIndex;
+    private final ItinerarySearchEngine itinerarySearchEngine;
+    private final FareEngine fareEngine;
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final CacheCodec cacheCodec;
+    private final MongoTemplate mongoTemplate;
+    private final FareCalendar fareCalendar;
 
 
     private static final String FLIGHT_CACHE_PREFIX = "flight:";
-    private static final String SEARCH_CACHE_PREFIX = "search:";
 
     // ===== CRUD Operations =====
     @Override
@@ -55,47 +89,17 @@ public class FlightServiceImpl implements FlightService {
         }
 
         // Convert DTO to entity
-        Flight flight = new Flight();
-        flight.setFlightNumber(request.getFlightNumber());
-        flight.setAirlineCode(request.getAirlineCode());
-        flight.setAirlineName(request.getAirlineName());
-        flight.setDepartureAirport(request.getDepartureAirport());
-        flight.setDepartureCity(request.getDepartureCity());
-        flight.setArrivalAirport(request.getArrivalAirport());
-        flight.setArrivalCity(request.getArrivalCity());
-        flight.setDepartureTime(request.getDepartureTime());
-        flight.setArrivalTime(request.getArrivalTime());
-        flight.setDurationMinutes(request.getDurationMinutes());
-        flight.setAircraftType(request.getAircraftType());
-        flight.setTotalSeats(request.getTotalSeats());
-        flight.setAvailableSeats(request.getAvailableSeats());
-        flight.setBasePrice(request.getBasePrice());
-        flight.setBusinessPrice(request.getBusinessPrice());
-        flight.setFirstPrice(request.getFirstPrice());
-        flight.setStatus(request.getStatus());
-        flight.setCreatedAt(LocalDateTime.now());
-        flight.setUpdatedAt(LocalDateTime.now());
-
-        // Convert seat configuration if provided
-        if (request.getSeatConfiguration() != null) {
-            List<SeatConfiguration> seatConfigs = request.getSeatConfiguration().stream()
-                    .map(config -> {
-                        SeatConfiguration seatConfig = new SeatConfiguration();
-                        seatConfig.setSeatClass(config.getSeatClass());
-                        seatConfig.setTotalSeats(config.getTotalSeats());
-                        seatConfig.setAvailableSeats(config.getAvailableSeats());
-                        seatConfig.setPrice(config.getPrice());
-                        return seatConfig;
-                    })
-                    .toList();
-            flight.setSeatConfiguration(seatConfigs);
-        }
+        Flight flight = toFlight(request, LocalDateTime.now());
 
         // Save flight
         Flight savedFlight = flightRepository.save(flight);
         
-        // Clear search cache
-        clearSearchCache();
+        // Clear search cache của route + ngày bay mới
+        clearSearchCache(savedFlight);
+        flightSearchIndex.upsert(savedFlight);
+        fareCalendar.onFlightChanged(savedFlight);
+        // Báo các instance khác (search index) có flight mới
+        clearFlightCache(savedFlight.getId());
         
         return convertToFlightResponse(savedFlight);
     }
@@ -107,6 +111,11 @@ public class FlightServiceImpl implements FlightService {
         Flight flight = flightRepository.findById(flightId)
                 .orElseThrow(() -> new ResourceNotFoundException("Flight", "id", flightId));
 
+        // Route + ngày bay trước khi cập nhật (có thể đổi sang slice khác)
+        String previousDepartureAirport = flight.getDepartureAirport();
+        String previousArrivalAirport = flight.getArrivalAirport();
+        LocalDateTime previousDepartureTime = flight.getDepartureTime();
+
         // Update fields if provided
         if (request.getFlightNumber() != null) {
             // Check if new flight number already exists (excluding current flight)
@@ -157,7 +166,13 @@ public class FlightServiceImpl implements FlightService {
         
         // Clear caches
         clearFlightCache(flightId);
-        clearSearchCache();
+        searchCache.invalidate(previousDepartureAirport, previousArrivalAirport,
+                previousDepartureTime != null ? previousDepartureTime.toLocalDate() : null);
+        clearSearchCache(updatedFlight);
+        flightSearchIndex.upsert(updatedFlight);
+        fareCalendar.onFlightMoved(updatedFlight, previousDepartureAirport, previousArrivalAirport, previousDepartureTime);
+        seatInventoryService.evict(flightId);
+        seatMapCache.evict(flightId);
         
         return convertToFlightResponse(updatedFlight);
     }
@@ -179,7 +194,12 @@ public class FlightServiceImpl implements FlightService {
         
         // Clear caches
         clearFlightCache(flightId);
-        clearSearchCache();
+        clearSearchCache(flight);
+        flightSearchIndex.remove(flightId);
+        fareCalendar.onFlightRemoved(flightId, flight.getDepartureAirport(), flight.getArrivalAirport(),
+                flight.getDepartureTime());
+        seatInventoryService.evict(flightId);
+        seatMapCache.evict(flightId);
     }
 
     @Override
@@ -205,18 +225,75 @@ public class FlightServiceImpl implements FlightService {
     }
 
     // ===== Existing methods =====
+    @Override
+    public CursorPageResponse<FlightResponse> getAllFlights(String cursor, int size, boolean includeTotal) {
+        log.info("Getting all flights after cursor: {}, size={}", cursor, size);
+
+        Query query = new Query();
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            query.addCriteria(after.createdAt() != null
+                    ? new Criteria().orOperator(
+                            Criteria.where("createdAt").lt(after.createdAt()),
+                            Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id()),
+                            Criteria.where("createdAt").is(null))
+                    : Criteria.where("createdAt").is(null).and("id").lt(after.id()));
+        }
+        // Lấy dư 1 phần tử để biết còn trang sau, không cần count
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))).limit(size + 1);
+        List<Flight> flights = mongoTemplate.find(query, Flight.class);
+
+        boolean hasNext = flights.size() > size;
+        List<Flight> page = hasNext ? flights.subList(0, size) : flights;
+        String nextCursor = null;
+        if (hasNext) {
+            Flight last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<FlightResponse>builder()
+                .content(page.stream().map(this::convertToFlightResponse).toList())
+                .size(size)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                // Số ước lượng từ metadata của collection, không scan
+                .totalElements(includeTotal ? mongoTemplate.estimatedCount(Flight.class) : null)
+                .totalEstimated(includeTotal)
+                .build();
+    }
+
     @Override
     public PageResponse<FlightResponse> searchFlights(FlightSearchRequest request, Pageable pageable) {
         log.info("Searching flights from {} to {} on {}",
                 request.getDepartureAirport(), request.getArrivalAirport(), request.getDepartureDate());
 
-        // Tạo cache key cho search results
-        String cacheKey = SEARCH_CACHE_PREFIX + request.hashCode() + ":" + pageable.toString();
+        // Infant ngồi cùng người lớn nên không chiếm ghế
+        PassengerCounts passengers = PassengerCounts.of(request.getAdults(), request.getChildren(), request.getInfants());
+        int seatCount = passengers.seatCount();
+        SeatClass fareClass = resolveSeatClass(request.getSeatClass());
+        String seatClass = fareClass.name();
+        String sortBy = request.getSortBy() != null ? request.getSortBy().toUpperCase() : "DEPARTURE_TIME";
+        String sortOrder = "DESC".equalsIgnoreCase(request.getSortOrder()) ? "DESC" : "ASC";
+
+        // Index trong bộ nhớ đã sẵn sàng thì không cần MongoDB lẫn Redis search cache
+        if (flightSearchIndex.isReady()) {
+            PageResponse<FlightResponse> result = toPageResponse(flightSearchIndex.search(request.getDepartureAirport(),
+                    request.getArrivalAirport(), request.getDepartureDate(), seatCount, seatClass, sortBy, sortOrder,
+                    pageable.getPageNumber(), pageable.getPageSize()));
+            result.getContent().forEach(flight -> applyFare(flight, fareClass, passengers));
+            return result;
+        }
+
+        // Cache key chuẩn hóa theo các tham số thực sự ảnh hưởng tới kết quả
+        String cacheKey = searchCache.cacheKey(request.getDepartureAirport(), request.getArrivalAirport(),
+                request.getDepartureDate(), seatCount + ":" + seatClass + ":" + sortBy + ":" + sortOrder + ":"
+                        + pageable.getPageNumber() + ":" + pageable.getPageSize());
 
         // Kiểm tra cache trước
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        PageResponse<FlightResponse> cached = searchCache.get(cacheKey);
         if (cached != null) {
-            return objectMapper.convertValue(cached, new TypeReference<PageResponse<FlightResponse>>() {});
+            cached.getContent().forEach(flight -> applyFare(flight, fareClass, passengers));
+            return cached;
         }
 
         // Tính toán thời gian tìm kiếm
@@ -224,7 +301,7 @@ public class FlightServiceImpl implements FlightService {
         LocalDateTime endDate = startDate.plusDays(1);
 
         // Tạo sort criteria
-        Sort sort = createSortCriteria(request.getSortBy(), request.getSortOrder());
+        Sort sort = createSortCriteria(sortBy, sortOrder);
         Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
 
         // Tìm kiếm trong database
@@ -233,39 +310,74 @@ public class FlightServiceImpl implements FlightService {
                 request.getArrivalAirport(),
                 startDate,
                 endDate,
+                seatCount,
+                seatClass,
                 sortedPageable
         );
 
-        // Convert to response DTOs
-        List<FlightResponse> flightResponses = flightPage.getContent().stream()
-                .map(this::convertToFlightResponse)
-                .toList();
+        PageResponse<FlightResponse> result = toPageResponse(flightPage);
 
-        PageResponse<FlightResponse> result = PageResponse.<FlightResponse>builder()
-                .content(flightResponses)
-                .page(flightPage.getNumber())
-                .size(flightPage.getSize())
-                .totalElements(flightPage.getTotalElements())
-                .totalPages(flightPage.getTotalPages())
-                .first(flightPage.isFirst())
-                .last(flightPage.isLast())
-                .build();
-
-        // Cache kết quả trong 5 phút
-        redisTemplate.opsForValue().set(cacheKey, result, 5, TimeUnit.MINUTES);
+        // Cache kết quả trong 5 phút (chưa gắn giá: giá theo tải ghế và số hành khách được tính lại mỗi lần)
+        searchCache.put(cacheKey, result);
 
+        result.getContent().forEach(flight -> applyFare(flight, fareClass, passengers));
         return result;
     }
 
+    @Override
+    public List<FareCalendarDay> getFareCalendar(String departureAirport, String arrivalAirport, LocalDate from, int days) {
+        return fareCalendar.getCalendar(departureAirport.toUpperCase(), arrivalAirport.toUpperCase(),
+                from != null ? from : LocalDate.now(), days);
+    }
+
+    @Override
+    public ItinerarySearchResponse searchItineraries(FlightSearchRequest request, int limit) {
+        boolean roundTrip = "ROUND_TRIP".equalsIgnoreCase(request.getTripType());
+        log.info("Searching {} itineraries from {} to {} on {}", roundTrip ? "round-trip" : "one-way",
+                request.getDepartureAirport(), request.getArrivalAirport(), request.getDepartureDate());
+
+        if (roundTrip && request.getReturnDate() == null) {
+            throw new BusinessException("Return date is required for round trip");
+        }
+        if (roundTrip && request.getReturnDate().isBefore(request.getDepartureDate())) {
+            throw new BusinessException("Return date must not be before departure date");
+        }
+
+        PassengerCounts passengers = PassengerCounts.of(request.getAdults(), request.getChildren(), request.getInfants());
+        SeatClass seatClass = resolveSeatClass(request.getSeatClass());
+        String sortBy = request.getSortBy() != null ? request.getSortBy().toUpperCase() : "PRICE";
+        String sortOrder = "DESC".equalsIgnoreCase(request.getSortOrder()) ? "DESC" : "ASC";
+
+        ItinerarySearchEngine.Result result = itinerarySearchEngine.search(
+                request.getDepartureAirport(), request.getArrivalAirport(),
+                request.getDepartureDate(), roundTrip ? request.getReturnDate() : null,
+                passengers, seatClass, Boolean.TRUE.equals(request.getDirectFlightsOnly()),
+                sortBy, sortOrder, limit);
+
+        return ItinerarySearchResponse.builder()
+                .tripType(roundTrip ? "ROUND_TRIP" : "ONE_WAY")
+                .outbound(result.outbound().stream()
+                        .map(itinerary -> toItineraryResponse(itinerary, seatClass, passengers)).toList())
+                .inbound(result.inbound().stream()
+                        .map(itinerary -> toItineraryResponse(itinerary, seatClass, passengers)).toList())
+                .partial(result.partial())
+                .build();
+    }
+
     @Override
     public FlightResponse getFlightById(String flightId) {
+        // L1 trong JVM, miss mới xuống Redis / MongoDB
+        return flightNearCache.get(flightId, this::loadFlightById);
+    }
+
+    private FlightResponse loadFlightById(String flightId) {
         log.info("Getting flight details for ID: {}", flightId);
 
         String cacheKey = FLIGHT_CACHE_PREFIX + flightId;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        FlightResponse cached = cacheCodec.decode(CachedType.FLIGHT, binaryRedisTemplate.opsForValue().get(cacheKey));
 
         if (cached != null) {
-            return objectMapper.convertValue(cached, FlightResponse.class);
+            return cached;
         }
 
         Flight flight = flightRepository.findById(flightId)
@@ -273,7 +385,7 @@ public class FlightServiceImpl implements FlightService {
 
         FlightResponse response = convertToFlightResponse(flight);
 
-        redisTemplate.opsForValue().set(cacheKey, response, 10, TimeUnit.MINUTES);
+        binaryRedisTemplate.opsForValue().set(cacheKey, cacheCodec.encode(CachedType.FLIGHT, response), 10, TimeUnit.MINUTES);
 
         return response;
     }
@@ -282,57 +394,165 @@ public class FlightServiceImpl implements FlightService {
     public SeatMapResponse getFlightSeatMap(String flightId) {
         log.info("Getting seat map for flight: {}", flightId);
 
-        Flight flight = flightRepository.findById(flightId)
-                .orElseThrow(() -> new ResourceNotFoundException("Flight", "id", flightId));
+        SeatInventory inventory = seatInventoryService.getInventory(flightId);
+        long now = System.currentTimeMillis();
+        String stateTag = inventory.stateTag(now);
 
-        // Lấy thông tin user hiện tại (nếu có)
-        Long currentUserId = getCurrentUserId();
+        // Seat map chung được cache theo state tag, chỉ build lại khi có lock/release/confirm/expire
+        SeatMapResponse seatMap = seatMapCache.get(flightId, stateTag);
+        if (seatMap == null) {
+            seatMap = generateSeatMap(getFlightById(flightId), inventory, now);
+            seatMapCache.put(flightId, stateTag, seatMap);
+        }
 
-        // Generate seat map
-        return generateSeatMap(flight, currentUserId);
+        // Overlay trạng thái SELECTED cho user hiện tại (nếu có)
+        return applySelectedSeats(seatMap, inventory.seatsLockedBy(getCurrentUserId(), now));
+    }
+
+    @Override
+    public String getSeatMapETag(String flightId) {
+        String stateTag = seatInventoryService.getInventory(flightId).stateTag(System.currentTimeMillis());
+        Long currentUserId = getCurrentUserId();
+        return flightId + "-" + stateTag + "-" + (currentUserId != null ? currentUserId : "anonymous");
     }
 
     @Override
     public boolean isSeatsAvailable(String flightId, List<String> seatNumbers) {
-        Flight flight = flightRepository.findById(flightId)
-                .orElseThrow(() -> new ResourceNotFoundException("Flight", "id", flightId));
+        // Trả lời từ seat inventory: O(số ghế yêu cầu), không query DB theo từng ghế
+        return seatInventoryService.isAvailable(flightId, seatNumbers, getCurrentUserId());
+    }
+
+    /**
+     * Cập nhật counter ghế trống (tổng và theo hạng ghế) bằng một update có điều kiện trên MongoDB.
+     * Khi giảm, điều kiện {@code >= n} nằm trong query nên không thể bán quá số ghế còn lại.
+     * Counter theo hạng dùng hạng ghế của booking; booking cũ không có hạng thì suy ra theo hàng ghế.
+     */
+    @Override
+    public void updateAvailableSeats(String flightId, List<String> seatNumbers, SeatClass seatClass, boolean increase) {
+        if (seatNumbers == null || seatNumbers.isEmpty()) {
+            return;
+        }
+        int seatCount = seatNumbers.size();
+        int sign = increase ? 1 : -1;
 
-        // Kiểm tra ghế có tồn tại không
-        List<String> allSeats = generateAllSeatNumbers(flight);
-        for (String seatNumber : seatNumbers) {
-            if (!allSeats.contains(seatNumber)) {
-                return false;
+        Map<SeatClass, Integer> seatsByClass = new EnumMap<>(SeatClass.class);
+        if (seatClass != null) {
+            seatsByClass.put(seatClass, seatCount);
+        } else {
+            for (String seatNumber : seatNumbers) {
+                int row = SeatLayout.rowOf(seatNumber);
+                if (row > 0) {
+                    seatsByClass.merge(SeatClass.valueOf(SeatLayout.seatClassOf(row)), 1, Integer::sum);
+                }
             }
         }
 
-        // Kiểm tra ghế có bị lock hoặc đã book không
-        for (String seatNumber : seatNumbers) {
-            if (isSeatOccupied(flightId, seatNumber)) {
-                return false;
+        // Flight có seat_configuration: cập nhật cả counter theo hạng ghế; flight cũ không có thì chỉ counter tổng
+        Flight updatedFlight = updateSeatCounters(flightId, seatCount, seatsByClass, sign, true);
+        if (updatedFlight == null) {
+            updatedFlight = updateSeatCounters(flightId, seatCount, seatsByClass, sign, false);
+        }
+
+        if (updatedFlight == null) {
+            if (!flightRepository.existsById(flightId)) {
+                throw new ResourceNotFoundException("Flight", "id", flightId);
             }
+            throw new BusinessException("Not enough available seats on flight " + flightId);
         }
 
-        return true;
+        // Chỉ counter ghế thay đổi: cập nhật tại chỗ near cache / search index của mọi instance thay vì xóa rồi đọc lại
+        FlightSeatCounters counters = FlightSeatCounters.of(updatedFlight);
+        redisTemplate.delete(FLIGHT_CACHE_PREFIX + flightId);
+        flightNearCache.publishSeatCounters(counters);
+        flightSearchIndex.applySeatCounters(counters);
+        fareCalendar.onFlightChanged(updatedFlight);
     }
 
-    @Override
-    public void updateAvailableSeats(String flightId, int seatCount, boolean increase) {
-        Flight flight = flightRepository.findById(flightId)
-                .orElseThrow(() -> new ResourceNotFoundException("Flight", "id", flightId));
+    // ===== Helper methods =====
+    private ItineraryResponse toItineraryResponse(ItinerarySearchEngine.Itinerary itinerary, SeatClass seatClass,
+                                                  PassengerCounts passengers) {
+        List<Flight> legs = itinerary.legs();
+        List<FlightResponse> legResponses = legs.stream().map(this::convertToFlightResponse).toList();
+        legResponses.forEach(leg -> applyFare(leg, seatClass, passengers));
+
+        return ItineraryResponse.builder()
+                .legs(legResponses)
+                .stops(itinerary.stops())
+                .departureTime(legs.get(0).getDepartureTime())
+                .arrivalTime(legs.get(legs.size() - 1).getArrivalTime())
+                .totalDurationMinutes(itinerary.durationMinutes())
+                .layoverMinutes(itinerary.layoverMinutes())
+                .totalPrice(fareEngine.toAmount(itinerary.totalFareMinor()))
+                .build();
+    }
 
-        if (increase) {
-            flight.setAvailableSeats(flight.getAvailableSeats() + seatCount);
-        } else {
-            flight.setAvailableSeats(flight.getAvailableSeats() - seatCount);
+    /**
+     * Gắn giá hiện tại (theo tải ghế của hạng ghế) và quote để đặt vé đúng giá đó.
+     */
+    private void applyFare(FlightResponse flight, SeatClass seatClass, PassengerCounts passengers) {
+        FareTable fareTable = fareEngine.tableFor(flight);
+        int tier = fareTable.tierFor(seatClass, fareEngine.availableSeats(flight, seatClass));
+        flight.setTotalFare(fareEngine.toAmount(fareTable.total(seatClass, tier, passengers)));
+        flight.setFareQuote(fareEngine.issueQuote(fareTable, seatClass, tier));
+    }
+
+    private static SeatClass resolveSeatClass(String seatClass) {
+        if (seatClass == null) {
+            return SeatClass.ECONOMY;
         }
+        try {
+            return SeatClass.valueOf(seatClass.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid seat class: " + seatClass);
+        }
+    }
 
-        flightRepository.save(flight);
+    private PageResponse<FlightResponse> toPageResponse(Page<Flight> flightPage) {
+        List<FlightResponse> flightResponses = flightPage.getContent().stream()
+                .map(this::convertToFlightResponse)
+                .toList();
 
-        // Invalidate cache
-        redisTemplate.delete(FLIGHT_CACHE_PREFIX + flightId);
+        return PageResponse.<FlightResponse>builder()
+                .content(flightResponses)
+                .page(flightPage.getNumber())
+                .size(flightPage.getSize())
+                .totalElements(flightPage.getTotalElements())
+                .totalPages(flightPage.getTotalPages())
+                .first(flightPage.isFirst())
+                .last(flightPage.isLast())
+                .build();
+    }
+
+    private Flight updateSeatCounters(String flightId, int seatCount, Map<SeatClass, Integer> seatsByClass,
+                                      int sign, boolean withClassBuckets) {
+        List<Criteria> guards = new ArrayList<>();
+        guards.add(Criteria.where("id").is(flightId));
+        guards.add(Criteria.where("seatConfiguration").exists(withClassBuckets));
+        if (sign < 0) {
+            guards.add(Criteria.where("availableSeats").gte(seatCount));
+        }
+
+        Update update = new Update()
+                .inc("availableSeats", sign * seatCount)
+                .set("updatedAt", LocalDateTime.now());
+
+        if (withClassBuckets) {
+            seatsByClass.forEach((seatClass, count) -> {
+                String filter = seatClass.name().toLowerCase();
+                if (sign < 0) {
+                    guards.add(Criteria.where("seatConfiguration").not().elemMatch(
+                            Criteria.where("seatClass").is(seatClass.name()).and("availableSeats").lt(count)));
+                }
+                update.inc("seatConfiguration.$[" + filter + "].availableSeats", sign * count)
+                        .filterArray(Criteria.where(filter + ".seatClass").is(seatClass.name()));
+            });
+        }
+
+        // Trả về flight sau khi cập nhật để lịch giá dùng đúng counter mới, không cần đọc lại
+        return mongoTemplate.findAndModify(Query.query(new Criteria().andOperator(guards)), update,
+                FindAndModifyOptions.options().returnNew(true), Flight.class);
     }
 
-    // ===== Helper methods =====
     private Sort createSortCriteria(String sortBy, String sortOrder) {
         Sort.Direction direction = "DESC".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
         return switch (sortBy.toUpperCase()) {
@@ -363,6 +583,7 @@ public class FlightServiceImpl implements FlightService {
         response.setBusinessPrice(flight.getBusinessPrice());
         response.setFirstPrice(flight.getFirstPrice());
         response.setStatus(flight.getStatus());
+        response.setUpdatedAt(flight.getUpdatedAt());
         
         if (flight.getSeatConfiguration() != null) {
             List<SeatClassInfo> seatClassInfos = flight.getSeatConfiguration().stream()
@@ -380,30 +601,27 @@ public class FlightServiceImpl implements FlightService {
         return response;
     }
 
-    private SeatMapResponse generateSeatMap(Flight flight, Long currentUserId) {
-        List<SeatRow> seatRows = new ArrayList<>();
-        int totalRows = flight.getTotalSeats() / 6;
-
-        for (int row = 1; row <= totalRows; row++) {
-            String seatClass = row <= 5 ? "BUSINESS" : "ECONOMY";
-            List<Seat> seats = new ArrayList<>();
-            for (char seatLetter = 'A'; seatLetter <= 'F'; seatLetter++) {
-                String seatNumber = row + String.valueOf(seatLetter);
-                SeatStatus status = getSeatStatus(flight.getId(), seatNumber, currentUserId);
-                String seatType = (seatLetter == 'A' || seatLetter == 'F') ? "WINDOW" :
-                        (seatLetter == 'C' || seatLetter == 'D') ? "AISLE" : "MIDDLE";
+    private SeatMapResponse generateSeatMap(FlightResponse flight, SeatInventory inventory, long now) {
+        SeatLayout layout = inventory.getLayout();
+        long version = inventory.getVersion();
+        SeatStatus[] statuses = inventory.statuses(null, now);
+
+        List<SeatRow> seatRows = new ArrayList<>(layout.rows());
+        for (int row = 1; row <= layout.rows(); row++) {
+            List<Seat> seats = new ArrayList<>(SeatLayout.SEATS_PER_ROW);
+            for (int index = (row - 1) * SeatLayout.SEATS_PER_ROW; index < row * SeatLayout.SEATS_PER_ROW; index++) {
                 seats.add(Seat.builder()
-                        .seatNumber(seatNumber)
-                        .seatType(seatType)
-                        .status(status)
+                        .seatNumber(layout.seatNumberAt(index))
+                        .seatType(SeatLayout.seatTypeOf(SeatLayout.letterOf(index)))
+                        .status(statuses[index])
                         .extraPrice(BigDecimal.ZERO)
                         .isEmergencyExit(row == 12 || row == 13)
-                        .hasExtraLegroom(row <= 5 || row == 12 || row == 13)
+                        .hasExtraLegroom(row <= SeatLayout.BUSINESS_ROWS || row == 12 || row == 13)
                         .build());
             }
             seatRows.add(SeatRow.builder()
                     .rowNumber(row)
-                    .seatClass(seatClass)
+                    .seatClass(SeatLayout.seatClassOf(row))
                     .seats(seats)
                     .build());
         }
@@ -419,39 +637,48 @@ public class FlightServiceImpl implements FlightService {
         return SeatMapResponse.builder()
                 .flightId(flight.getId())
                 .aircraftType(flight.getAircraftType())
+                .version(version)
                 .seatRows(seatRows)
                 .legend(legend)
                 .build();
     }
 
-    private SeatStatus getSeatStatus(String flightId, String seatNumber, Long currentUserId) {
-        if (isSeatOccupied(flightId, seatNumber)) {
-            return SeatStatus.OCCUPIED;
+    private SeatMapResponse applySelectedSeats(SeatMapResponse seatMap, List<Integer> selectedSeats) {
+        if (selectedSeats.isEmpty()) {
+            return seatMap;
         }
-        SeatLock activeLock = seatLockRepository.findActiveLockBySeat(flightId, seatNumber).orElse(null);
-        if (activeLock != null) {
-            return (currentUserId != null && activeLock.getUserId().equals(currentUserId))
-                    ? SeatStatus.SELECTED
-                    : SeatStatus.LOCKED;
-        }
-        return SeatStatus.AVAILABLE;
-    }
 
-    private boolean isSeatOccupied(String flightId, String seatNumber) {
-        return flightRepository.findById(flightId)
-                .map(flight -> false) // Placeholder, cần tích hợp với booking
-                .orElse(true);
-    }
-
-    private List<String> generateAllSeatNumbers(Flight flight) {
-        List<String> allSeats = new ArrayList<>();
-        int totalRows = flight.getTotalSeats() / 6;
-        for (int row = 1; row <= totalRows; row++) {
-            for (char seatLetter = 'A'; seatLetter <= 'F'; seatLetter++) {
-                allSeats.add(row + String.valueOf(seatLetter));
+        // Chỉ copy các hàng có ghế của user, phần còn lại dùng chung với bản cache
+        List<SeatRow> seatRows = new ArrayList<>(seatMap.getSeatRows());
+        for (int index : selectedSeats) {
+            int rowIndex = index / SeatLayout.SEATS_PER_ROW;
+            SeatRow row = seatRows.get(rowIndex);
+            if (row == seatMap.getSeatRows().get(rowIndex)) {
+                row = SeatRow.builder()
+                        .rowNumber(row.getRowNumber())
+                        .seatClass(row.getSeatClass())
+                        .seats(new ArrayList<>(row.getSeats()))
+                        .build();
+                seatRows.set(rowIndex, row);
             }
+            Seat seat = row.getSeats().get(index % SeatLayout.SEATS_PER_ROW);
+            row.getSeats().set(index % SeatLayout.SEATS_PER_ROW, Seat.builder()
+                    .seatNumber(seat.getSeatNumber())
+                    .seatType(seat.getSeatType())
+                    .status(SeatStatus.SELECTED)
+                    .extraPrice(seat.getExtraPrice())
+                    .isEmergencyExit(seat.getIsEmergencyExit())
+                    .hasExtraLegroom(seat.getHasExtraLegroom())
+                    .build());
         }
-        return allSeats;
+
+        return SeatMapResponse.builder()
+                .flightId(seatMap.getFlightId())
+                .aircraftType(seatMap.getAircraftType())
+                .version(seatMap.getVersion())
+                .seatRows(seatRows)
+                .legend(seatMap.getLegend())
+                .build();
     }
 
     private Long getCurrentUserId() {
@@ -465,16 +692,58 @@ public class FlightServiceImpl implements FlightService {
     }
 
     // ===== Helper methods for CRUD =====
+    /**
+     * Map request tạo flight sang entity (dùng chung cho createFlight và bulk import).
+     */
+    static Flight toFlight(CreateFlightRequest request, LocalDateTime now) {
+        Flight flight = new Flight();
+        flight.setFlightNumber(request.getFlightNumber());
+        flight.setAirlineCode(request.getAirlineCode());
+        flight.setAirlineName(request.getAirlineName());
+        flight.setDepartureAirport(request.getDepartureAirport());
+        flight.setDepartureCity(request.getDepartureCity());
+        flight.setArrivalAirport(request.getArrivalAirport());
+        flight.setArrivalCity(request.getArrivalCity());
+        flight.setDepartureTime(request.getDepartureTime());
+        flight.setArrivalTime(request.getArrivalTime());
+        flight.setDurationMinutes(request.getDurationMinutes());
+        flight.setAircraftType(request.getAircraftType());
+        flight.setTotalSeats(request.getTotalSeats());
+        flight.setAvailableSeats(request.getAvailableSeats());
+        flight.setBasePrice(request.getBasePrice());
+        flight.setBusinessPrice(request.getBusinessPrice());
+        flight.setFirstPrice(request.getFirstPrice());
+        flight.setStatus(request.getStatus());
+        flight.setCreatedAt(now);
+        flight.setUpdatedAt(now);
+
+        // Convert seat configuration if provided
+        if (request.getSeatConfiguration() != null) {
+            List<SeatConfiguration> seatConfigs = request.getSeatConfiguration().stream()
+                    .map(config -> {
+                        SeatConfiguration seatConfig = new SeatConfiguration();
+                        seatConfig.setSeatClass(config.getSeatClass());
+                        seatConfig.setTotalSeats(config.getTotalSeats());
+                        seatConfig.setAvailableSeats(config.getAvailableSeats());
+                        seatConfig.setPrice(config.getPrice());
+                        return seatConfig;
+                    })
+                    .toList();
+            flight.setSeatConfiguration(seatConfigs);
+        }
+
+        return flight;
+    }
+
     private void clearFlightCache(String flightId) {
         redisTemplate.delete(FLIGHT_CACHE_PREFIX + flightId);
+        flightNearCache.invalidate(flightId);
     }
 
-    private void clearSearchCache() {
-        // Clear all search cache keys
-        Set<String> keys = redisTemplate.keys(SEARCH_CACHE_PREFIX + "*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+    private void clearSearchCache(Flight flight) {
+        // Chỉ invalidate slice route + ngày bay của flight
+        searchCache.invalidate(flight.getDepartureAirport(), flight.getArrivalAirport(),
+                flight.getDepartureTime() != null ? flight.getDepartureTime().toLocalDate() : null);
     }
 }
 
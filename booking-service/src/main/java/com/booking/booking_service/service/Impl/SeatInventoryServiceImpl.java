@@ -0,0 +1,208 @@
+package com.booking.booking_service.service.Impl;
+
+import com.booking.booking_service.cache.CacheCodec;
+import com.booking.booking_service.cache.CachedType;
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import com.booking.booking_service.entity.Flight;
+import com.booking.booking_service.entity.SeatLock;
+import com.booking.booking_service.inventory.SeatInventory;
+import com.booking.booking_service.inventory.SeatLayout;
+import com.booking.booking_service.repository.FlightRepository;
+import com.booking.booking_service.repository.SeatLockRepository;
+import com.booking.booking_service.service.SeatInventoryService;
+import com.booking.booking_service.utils.LockStatus;
+import com.booking.booking_service.utils.SeatChangeType;
+import com.booking.booking_service.utils.SeatStatus;
+import com.booking.common_library.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class SeatInventoryServiceImpl implements SeatInventoryService {
+
+    private final FlightRepository flightRepository;
+    private final SeatLockRepository seatLockRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final CacheCodec cacheCodec;
+
+    private final Map<String, SeatInventory> inventories;
+    private final long refreshSeconds;
+
+    private static final String SEAT_MAP_VERSION_PREFIX = "seat_map:version:";
+    public static final String SEAT_MAP_DELTA_CHANNEL_PREFIX = "seat_map:delta:";
+
+    public SeatInventoryServiceImpl(FlightRepository flightRepository,
+                                    SeatLockRepository seatLockRepository,
+                                    RedisTemplate<String, Object> redisTemplate,
+                                    RedisTemplate<String, byte[]> binaryRedisTemplate,
+                                    CacheCodec cacheCodec,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.booking.seat-inventory.refresh-seconds:30}") long refreshSeconds,
+                                    @Value("${app.booking.seat-inventory.max-size:5000}") long maxSize,
+                                    @Value("${app.booking.seat-inventory.idle-minutes:30}") long idleMinutes) {
+        this.flightRepository = flightRepository;
+        this.seatLockRepository = seatLockRepository;
+        this.redisTemplate = redisTemplate;
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.cacheCodec = cacheCodec;
+        this.refreshSeconds = refreshSeconds;
+        // Giới hạn số flight giữ trong JVM; flight không còn được xem (vd. đã cất cánh) tự bị loại sau thời gian idle
+        Cache<String, SeatInventory> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "seatInventoryCache");
+        this.inventories = cache.asMap();
+    }
+
+    /**
+     * Lấy inventory của chuyến bay. Load lại từ MongoDB (1 query flight + 1 query seat lock) khi chưa có,
+     * khi seat-map version trên Redis đã thay đổi bởi instance khác, hoặc khi đã quá thời gian refresh.
+     */
+    @Override
+    public SeatInventory getInventory(String flightId) {
+        long now = System.currentTimeMillis();
+        long maxAgeMillis = refreshSeconds * 1000;
+        long currentVersion = getVersion(flightId);
+
+        SeatInventory inventory = inventories.get(flightId);
+        if (isUsable(inventory, currentVersion, now, maxAgeMillis)) {
+            return inventory;
+        }
+        return inventories.compute(flightId, (id, current) ->
+                isUsable(current, currentVersion, now, maxAgeMillis) ? current : loadInventory(id, currentVersion, now));
+    }
+
+    @Override
+    public long getVersion(String flightId) {
+        Object version = redisTemplate.opsForValue().get(SEAT_MAP_VERSION_PREFIX + flightId);
+        return version instanceof Number number ? number.longValue() : 0L;
+    }
+
+    @Override
+    public boolean isAvailable(String flightId, List<String> seatNumbers, Long viewerId) {
+        return getInventory(flightId).isAvailable(seatNumbers, viewerId, System.currentTimeMillis());
+    }
+
+    @Override
+    public void markLocked(String flightId, List<String> seatNumbers, Long userId, LocalDateTime expiresAt) {
+        publishChange(SeatMapDelta.builder()
+                .flightId(flightId)
+                .type(SeatChangeType.LOCKED)
+                .status(SeatStatus.LOCKED)
+                .seatNumbers(seatNumbers)
+                .lockedBy(userId)
+                .lockExpiresAt(expiresAt));
+    }
+
+    @Override
+    public void markReleased(String flightId, List<String> seatNumbers) {
+        publishChange(SeatMapDelta.builder()
+                .flightId(flightId)
+                .type(SeatChangeType.RELEASED)
+                .status(SeatStatus.AVAILABLE)
+                .seatNumbers(seatNumbers));
+    }
+
+    @Override
+    public void markExpired(String flightId, List<String> seatNumbers) {
+        publishChange(SeatMapDelta.builder()
+                .flightId(flightId)
+                .type(SeatChangeType.EXPIRED)
+                .status(SeatStatus.AVAILABLE)
+                .seatNumbers(seatNumbers));
+    }
+
+    @Override
+    public void markSold(String flightId, List<String> seatNumbers) {
+        publishChange(SeatMapDelta.builder()
+                .flightId(flightId)
+                .type(SeatChangeType.CONFIRMED)
+                .status(SeatStatus.OCCUPIED)
+                .seatNumbers(seatNumbers));
+    }
+
+    /**
+     * Áp dụng delta (của instance này hoặc instance khác) vào inventory local nếu đang giữ inventory của flight.
+     */
+    @Override
+    public void applyDelta(SeatMapDelta delta) {
+        SeatInventory inventory = inventories.get(delta.getFlightId());
+        if (inventory == null || inventory.getVersion() >= delta.getVersion()) {
+            return;
+        }
+        switch (delta.getType()) {
+            case LOCKED -> inventory.markLocked(delta.getSeatNumbers(), delta.getLockedBy(),
+                    toEpochMillis(delta.getLockExpiresAt()), delta.getVersion());
+            case RELEASED, EXPIRED -> inventory.markReleased(delta.getSeatNumbers(), delta.getVersion());
+            case CONFIRMED -> inventory.markSold(delta.getSeatNumbers(), delta.getVersion());
+        }
+    }
+
+    @Override
+    public void evict(String flightId) {
+        inventories.remove(flightId);
+    }
+
+    private boolean isUsable(SeatInventory inventory, long currentVersion, long now, long maxAgeMillis) {
+        return inventory != null && inventory.isAt(currentVersion) && !inventory.isOlderThan(now, maxAgeMillis);
+    }
+
+    private void publishChange(SeatMapDelta.SeatMapDeltaBuilder builder) {
+        SeatMapDelta delta = builder.build();
+        if (delta.getSeatNumbers() == null || delta.getSeatNumbers().isEmpty()) {
+            return;
+        }
+        delta.setVersion(nextVersion(delta.getFlightId()));
+        delta.setOccurredAt(LocalDateTime.now());
+
+        applyDelta(delta);
+        // Fan-out tới các instance khác (và SSE client) qua Redis pub/sub
+        binaryRedisTemplate.convertAndSend(SEAT_MAP_DELTA_CHANNEL_PREFIX + delta.getFlightId(),
+                cacheCodec.encode(CachedType.SEAT_MAP_DELTA, delta));
+    }
+
+    private long nextVersion(String flightId) {
+        Long version = redisTemplate.opsForValue().increment(SEAT_MAP_VERSION_PREFIX + flightId);
+        return version != null ? version : -1L;
+    }
+
+    private SeatInventory loadInventory(String flightId, long version, long now) {
+        Flight flight = flightRepository.findById(flightId)
+                .orElseThrow(() -> new ResourceNotFoundException("Flight", "id", flightId));
+
+        SeatInventory inventory = new SeatInventory(flightId, SeatLayout.forTotalSeats(flight.getTotalSeats()), version, now);
+
+        List<SeatLock> locks = seatLockRepository.findOccupyingLocksByFlight(flightId);
+        for (SeatLock lock : locks) {
+            if (lock.getStatus() == LockStatus.CONFIRMED) {
+                inventory.loadSold(lock.getSeatNumber());
+            } else if (lock.getExpiresAt() != null) {
+                inventory.loadLocked(lock.getSeatNumber(), lock.getUserId(), toEpochMillis(lock.getExpiresAt()), now);
+            }
+        }
+
+        log.debug("Loaded seat inventory for flight {} at version {} with {} occupying locks",
+                flightId, version, locks.size());
+        return inventory;
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,16 +1,30 @@
 package com.booking.booking_service.service.Impl;
 
+import com.booking.booking_service.actor.SeatActorSystem;
+import com.booking.booking_service.actor.SeatCommand;
 import com.booking.booking_service.entity.SeatLock;
 import com.booking.booking_service.repository.SeatLockRepository;
+import com.booking.booking_service.service.SeatInventoryService;
 import com.booking.booking_service.service.SeatLockService;
 import com.booking.booking_service.utils.LockStatus;
 import com.booking.common_library.exception.BusinessException;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import lombok.RequiredArgsConstructor;
@@ -18,6 +32,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -26,70 +41,90 @@ public class SeatLockServiceImpl implements SeatLockService {
 
     private final SeatLockRepository seatLockRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatActorSystem seatActorSystem;
 
     @Value("${app.booking.seat-lock-duration:15}")
     private int seatLockDurationMinutes;
 
+    @Value("${app.booking.seat-lock-expiry.batch-size:500}")
+    private int expiryBatchSize;
+
     private static final String SEAT_LOCK_PREFIX = "seat_lock:";
+    // ZSET member = flightId:seatNumber, score = expiresAt (epoch ms)
+    private static final String SEAT_LOCK_EXPIRY_QUEUE = "seat_lock_expiry:queue";
+
+    private static final RedisScript<Long> LOCK_SEATS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lock_seats.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SEATS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/release_seats.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_DUE_ENTRIES_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/claim_due_entries.lua"), List.class);
 
     /**
      * Lock ghế cho user trong thời gian nhất định
      */
-    @Transactional
     @Override
     public SeatLock lockSeat(String flightId, String seatNumber, Long userId, String sessionId) {
         log.info("Attempting to lock seat {} for flight {} by user {}", seatNumber, flightId, userId);
 
-        // Kiểm tra xem ghế đã bị lock chưa
-        if (isSeatLocked(flightId, seatNumber)) {
-            throw new BusinessException("Seat " + seatNumber + " is already locked by another user");
-        }
-
-        // Tạo lock key cho Redis
-        String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + seatNumber;
-
-        // Set distributed lock trong Redis với expiration
-        Boolean lockAcquired = redisTemplate.opsForValue()
-                .setIfAbsent(lockKey, userId.toString(), seatLockDurationMinutes, TimeUnit.MINUTES);
-
-        if (!lockAcquired) {
-            throw new BusinessException("Cannot acquire lock for seat " + seatNumber);
-        }
-
-        // Tạo seat lock record trong database
-        LocalDateTime now = LocalDateTime.now();
-        SeatLock seatLock = SeatLock.builder()
-                .flightId(flightId)
-                .seatNumber(seatNumber)
-                .userId(userId)
-                .sessionId(sessionId)
-                .lockedAt(now)
-                .expiresAt(now.plusMinutes(seatLockDurationMinutes))
-                .status(LockStatus.ACTIVE)
-                .build();
-
-        seatLock = seatLockRepository.save(seatLock);
-        log.info("Successfully locked seat {} for user {} until {}", seatNumber, userId, seatLock.getExpiresAt());
-
-        return seatLock;
+        return lockSeats(flightId, List.of(seatNumber), userId, sessionId).get(0);
     }
 
+    /**
+     * Lock nhiều ghế theo kiểu all-or-nothing: một Lua script trên Redis và một bulk insert vào MongoDB
+     */
     @Override
-    @Transactional
     public List<SeatLock> lockSeats(String flightId, List<String> seatNumbers, Long userId, String sessionId) {
         log.info("Attempting to lock {} seats for flight {} by user {}", seatNumbers.size(), flightId, userId);
 
-        // Kiểm tra tất cả ghế trước khi lock
-        for (String seatNumber : seatNumbers) {
-            if (isSeatLocked(flightId, seatNumber)) {
-                throw new BusinessException("Seat " + seatNumber + " is already locked");
-            }
+        if (seatActorSystem.isEnabled()) {
+            return seatActorSystem.send(SeatCommand.builder()
+                    .type(SeatCommand.Type.LOCK)
+                    .flightId(flightId)
+                    .seatNumbers(seatNumbers)
+                    .userId(userId)
+                    .sessionId(sessionId)
+                    .minutes(seatLockDurationMinutes)
+                    .build());
         }
 
-        // Lock tất cả ghế
-        return seatNumbers.stream()
-                .map(seatNumber -> lockSeat(flightId, seatNumber, userId, sessionId))
+        List<String> seats = seatNumbers.stream().distinct().toList();
+        List<String> lockKeys = seats.stream()
+                .map(seatNumber -> SEAT_LOCK_PREFIX + flightId + ":" + seatNumber)
                 .toList();
+        String owner = userId.toString();
+
+        // Lock tất cả ghế trong một lần gọi Redis, không để lại lock dở dang khi có ghế bị tranh chấp
+        Long conflict = redisTemplate.execute(LOCK_SEATS_SCRIPT, lockKeys,
+                owner, TimeUnit.MINUTES.toMillis(seatLockDurationMinutes));
+        if (conflict == null) {
+            throw new BusinessException("Cannot acquire lock for seats " + seats);
+        }
+        if (conflict != 0) {
+            throw new BusinessException("Seat " + seats.get(conflict.intValue() - 1) + " is already locked");
+        }
+
+        // Tạo seat lock records trong database
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime expiresAt = now.plusMinutes(seatLockDurationMinutes);
+
+        List<SeatLock> seatLocks;
+        try {
+            seatLocks = insertLocks(flightId, seats, userId, sessionId, now, expiresAt);
+        } catch (RuntimeException e) {
+            // Rollback Redis locks nếu không ghi được MongoDB
+            redisTemplate.execute(RELEASE_SEATS_SCRIPT, lockKeys, owner);
+            throw e;
+        }
+
+        scheduleExpiry(flightId, seats, expiresAt);
+        seatInventoryService.markLocked(flightId, seats, userId, expiresAt);
+        log.info("Successfully locked seats {} for user {} until {}", seats, userId, expiresAt);
+
+        return seatLocks;
     }
 
 
@@ -98,6 +133,9 @@ public class SeatLockServiceImpl implements SeatLockService {
      */
     @Override
     public boolean isSeatLocked(String flightId, String seatNumber) {
+        if (seatActorSystem.isEnabled()) {
+            return !seatActorSystem.send(command(SeatCommand.Type.IS_LOCKED, flightId, List.of(seatNumber), null)).isEmpty();
+        }
         String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + seatNumber;
         return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey));
     }
@@ -106,10 +144,14 @@ public class SeatLockServiceImpl implements SeatLockService {
      * Giải phóng lock ghế
      */
     @Override
-    @Transactional
     public void releaseSeatLock(String flightId, String seatNumber, Long userId) {
         log.info("Releasing seat lock for seat {} on flight {} by user {}", seatNumber, flightId, userId);
 
+        if (seatActorSystem.isEnabled()) {
+            seatActorSystem.send(command(SeatCommand.Type.RELEASE, flightId, List.of(seatNumber), userId));
+            return;
+        }
+
         String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + seatNumber;
 
         // Kiểm tra user có quyền release lock không
@@ -127,44 +169,63 @@ public class SeatLockServiceImpl implements SeatLockService {
                     lock.setStatus(LockStatus.RELEASED);
                     seatLockRepository.save(lock);
                 });
+        cancelExpiry(flightId, List.of(seatNumber));
+        seatInventoryService.markReleased(flightId, List.of(seatNumber));
     }
 
     /**
      * Giải phóng tất cả lock của user cho flight
      */
     @Override
-    @Transactional
     public void releaseUserLocks(String flightId, Long userId) {
         log.info("Releasing all seat locks for user {} on flight {}", userId, flightId);
 
+        if (seatActorSystem.isEnabled()) {
+            seatActorSystem.send(command(SeatCommand.Type.RELEASE, flightId, null, userId));
+            return;
+        }
+
         List<SeatLock> userLocks = seatLockRepository.findActiveLocksByFlightAndUser(flightId, userId);
+        if (userLocks.isEmpty()) {
+            return;
+        }
 
-        for (SeatLock lock : userLocks) {
-            String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + lock.getSeatNumber();
-            redisTemplate.delete(lockKey);
+        // Một lệnh DEL nhiều key và một updateMany, không phụ thuộc số ghế
+        clearRedisLocks(lockKeys(userLocks), expiryEntries(userLocks));
+        seatLockRepository.markReleasedByIds(userLocks.stream().map(SeatLock::getId).toList());
 
-            lock.setStatus(LockStatus.RELEASED);
-            seatLockRepository.save(lock);
-        }
+        List<String> releasedSeats = userLocks.stream().map(SeatLock::getSeatNumber).toList();
+        seatInventoryService.markReleased(flightId, releasedSeats);
     }
 
     /**
      * Giải phóng tất cả lock của session
      */
     @Override
-    @Transactional
     public void releaseSessionLocks(String sessionId) {
         log.info("Releasing all seat locks for session {}", sessionId);
 
+        if (seatActorSystem.isEnabled()) {
+            // Không đọc MongoDB trước: lock vừa tạo có thể còn nằm trong journal, actor mới có state đầy đủ
+            seatActorSystem.releaseSession(sessionId);
+            return;
+        }
+
         List<SeatLock> sessionLocks = seatLockRepository.findActiveLocksBySession(sessionId);
 
-        for (SeatLock lock : sessionLocks) {
-            String lockKey = SEAT_LOCK_PREFIX + lock.getFlightId() + ":" + lock.getSeatNumber();
-            redisTemplate.delete(lockKey);
+        if (sessionLocks.isEmpty()) {
+            return;
+        }
 
-            lock.setStatus(LockStatus.RELEASED);
-            seatLockRepository.save(lock);
+        clearRedisLocks(lockKeys(sessionLocks), expiryEntries(sessionLocks));
+        seatLockRepository.markReleasedByIds(sessionLocks.stream().map(SeatLock::getId).toList());
+
+        // Seat map được cache theo flight
+        Map<String, List<String>> seatsByFlight = new HashMap<>();
+        for (SeatLock lock : sessionLocks) {
+            seatsByFlight.computeIfAbsent(lock.getFlightId(), id -> new ArrayList<>()).add(lock.getSeatNumber());
         }
+        seatsByFlight.forEach(seatInventoryService::markReleased);
     }
 
 
@@ -172,25 +233,57 @@ public class SeatLockServiceImpl implements SeatLockService {
      * Confirm lock thành booking
      */
     @Override
-    @Transactional
     public void confirmSeatLocks(String flightId, List<String> seatNumbers, Long userId, String bookingId) {
         log.info("Confirming seat locks for booking {} by user {}", bookingId, userId);
 
-        for (String seatNumber : seatNumbers) {
-            seatLockRepository.findActiveLockBySeat(flightId, seatNumber)
-                    .ifPresent(lock -> {
-                        if (!lock.getUserId().equals(userId)) {
-                            throw new BusinessException("Cannot confirm seat lock owned by another user");
-                        }
-
-                        lock.setStatus(LockStatus.CONFIRMED);
-                        lock.setBookingId(bookingId);
-                        seatLockRepository.save(lock);
-                    });
-
-            // Xóa lock trong Redis vì đã confirm
-            String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + seatNumber;
-            redisTemplate.delete(lockKey);
+        if (seatActorSystem.isEnabled()) {
+            seatActorSystem.send(SeatCommand.builder()
+                    .type(SeatCommand.Type.CONFIRM)
+                    .flightId(flightId)
+                    .seatNumbers(seatNumbers)
+                    .userId(userId)
+                    .bookingId(bookingId)
+                    .build());
+            return;
+        }
+
+        List<SeatLock> activeLocks = seatLockRepository.findActiveLocksBySeats(flightId, seatNumbers);
+        for (SeatLock lock : activeLocks) {
+            if (!lock.getUserId().equals(userId)) {
+                throw new BusinessException("Cannot confirm seat lock owned by another user");
+            }
+        }
+        if (!activeLocks.isEmpty()) {
+            seatLockRepository.markConfirmedByIds(activeLocks.stream().map(SeatLock::getId).toList(), bookingId);
+        }
+
+        // Xóa lock trong Redis vì đã confirm
+        clearRedisLocks(
+                seatNumbers.stream().map(seatNumber -> SEAT_LOCK_PREFIX + flightId + ":" + seatNumber).toList(),
+                seatNumbers.stream().map(seatNumber -> expiryEntry(flightId, seatNumber)).toList());
+        seatInventoryService.markSold(flightId, seatNumbers);
+    }
+
+    /**
+     * Trả lại ghế của booking đã thanh toán bị hủy: lock CONFIRMED chuyển sang RELEASED để seat map không còn tính là đã bán.
+     */
+    @Override
+    public void releaseBookingLocks(String flightId, String bookingId, List<String> seatNumbers) {
+        log.info("Releasing confirmed seat locks of booking {}", bookingId);
+
+        if (seatActorSystem.isEnabled()) {
+            // Qua actor để ghi sau thay đổi CONFIRM của booking còn nằm trong journal
+            seatActorSystem.send(SeatCommand.builder()
+                    .type(SeatCommand.Type.RELEASE_BOOKING)
+                    .flightId(flightId)
+                    .seatNumbers(seatNumbers)
+                    .bookingId(bookingId)
+                    .build());
+            return;
+        }
+
+        if (seatLockRepository.markReleasedByBooking(bookingId) > 0) {
+            seatInventoryService.markReleased(flightId, seatNumbers);
         }
     }
 
@@ -207,10 +300,20 @@ public class SeatLockServiceImpl implements SeatLockService {
      * Extend thời gian lock
      */
     @Override
-    @Transactional
     public void extendSeatLock(String flightId, String seatNumber, Long userId, int additionalMinutes) {
         log.info("Extending seat lock for seat {} by {} minutes", seatNumber, additionalMinutes);
 
+        if (seatActorSystem.isEnabled()) {
+            seatActorSystem.send(SeatCommand.builder()
+                    .type(SeatCommand.Type.EXTEND)
+                    .flightId(flightId)
+                    .seatNumbers(List.of(seatNumber))
+                    .userId(userId)
+                    .minutes(additionalMinutes)
+                    .build());
+            return;
+        }
+
         String lockKey = SEAT_LOCK_PREFIX + flightId + ":" + seatNumber;
 
         // Kiểm tra user có quyền extend không
@@ -227,42 +330,78 @@ public class SeatLockServiceImpl implements SeatLockService {
                 .ifPresent(lock -> {
                     lock.setExpiresAt(lock.getExpiresAt().plusMinutes(additionalMinutes));
                     seatLockRepository.save(lock);
+                    scheduleExpiry(flightId, List.of(seatNumber), lock.getExpiresAt());
+                    seatInventoryService.markLocked(flightId, List.of(seatNumber), userId, lock.getExpiresAt());
                 });
     }
 
     /**
-     * Cleanup expired locks - chạy định kỳ mỗi phút
+     * Xử lý các lock đã đến hạn trong delay queue trên Redis (gần như đúng thời điểm hết hạn).
+     * Lua script lấy và xóa entry trong một bước nên chạy trên nhiều instance không bị xử lý trùng.
      */
     @Override
-    @Scheduled(fixedRate = 60000) // 1 phút
-    @Async
-    public void cleanupExpiredLocks() {
-        log.debug("Running cleanup for expired seat locks");
+    @Scheduled(fixedDelayString = "${app.booking.seat-lock-expiry.poll-interval-ms:1000}")
+    public void processDueLockExpirations() {
+        List<String> dueEntries;
+        try {
+            dueEntries = claimDueEntries(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("Cannot poll seat lock expiry queue: {}", e.getMessage());
+            return;
+        }
+        if (dueEntries.isEmpty()) {
+            return;
+        }
 
-        LocalDateTime now = LocalDateTime.now();
-        List<SeatLock> expiredLocks = seatLockRepository.findExpiredLocks(now);
+        // Gom theo flight để mỗi flight chỉ cần 1 query + 1 bulk update
+        Map<String, List<String>> seatsByFlight = new HashMap<>();
+        for (String entry : dueEntries) {
+            int separator = entry.lastIndexOf(':');
+            seatsByFlight.computeIfAbsent(entry.substring(0, separator), id -> new ArrayList<>())
+                    .add(entry.substring(separator + 1));
+        }
 
-        for (SeatLock lock : expiredLocks) {
+        LocalDateTime now = LocalDateTime.now();
+        seatsByFlight.forEach((flightId, seats) -> {
             try {
-                // Xóa lock trong Redis
-                String lockKey = SEAT_LOCK_PREFIX + lock.getFlightId() + ":" + lock.getSeatNumber();
-                redisTemplate.delete(lockKey);
-
-                // Update status trong database
-                lock.setStatus(LockStatus.EXPIRED);
-                seatLockRepository.save(lock);
-
-                log.debug("Cleaned up expired lock for seat {} on flight {}",
-                        lock.getSeatNumber(), lock.getFlightId());
-
+                if (seatActorSystem.isEnabled()) {
+                    // Actor sở hữu flight tự hết hạn các lock đến hạn khi nhận lệnh
+                    seatActorSystem.send(command(SeatCommand.Type.EXPIRE, flightId, seats, null));
+                    return;
+                }
+                expireLocks(flightId, seatLockRepository.findExpiredLocksBySeats(flightId, seats, now), now);
             } catch (Exception e) {
-                log.error("Error cleaning up expired lock {}: {}", lock.getId(), e.getMessage());
+                // Entry đã bị lấy khỏi queue, sweep định kỳ sẽ đưa lại vào queue
+                log.error("Error expiring seat locks {} on flight {}: {}", seats, flightId, e.getMessage());
             }
+        });
+    }
+
+    /**
+     * Sweep dự phòng: đưa lại vào delay queue các lock đã hết hạn nhưng chưa được xử lý
+     * (entry bị mất khi Redis lỗi hoặc instance dừng giữa chừng).
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.booking.seat-lock-expiry.sweep-interval-ms:300000}",
+            initialDelayString = "${app.booking.seat-lock-expiry.sweep-initial-delay-ms:60000}")
+    @Async
+    public void cleanupExpiredLocks() {
+        log.debug("Running cleanup for expired seat locks");
+
+        List<SeatLock> expiredLocks = seatLockRepository.findExpiredLocks(LocalDateTime.now());
+        if (expiredLocks.isEmpty()) {
+            return;
         }
 
-        if (!expiredLocks.isEmpty()) {
-            log.info("Cleaned up {} expired seat locks", expiredLocks.size());
+        Set<ZSetOperations.TypedTuple<Object>> entries = new HashSet<>();
+        for (SeatLock lock : expiredLocks) {
+            entries.add(ZSetOperations.TypedTuple.of(
+                    expiryEntry(lock.getFlightId(), lock.getSeatNumber()),
+                    (double) toEpochMillis(lock.getExpiresAt())));
         }
+        redisTemplate.opsForZSet().add(SEAT_LOCK_EXPIRY_QUEUE, entries);
+
+        log.info("Re-queued {} expired seat locks for expiry", expiredLocks.size());
     }
 
     /**
@@ -270,6 +409,9 @@ public class SeatLockServiceImpl implements SeatLockService {
      */
     @Override
     public boolean hasUserLockedSeats(String flightId, Long userId) {
+        if (seatActorSystem.isEnabled()) {
+            return !getUserLockedSeats(flightId, userId).isEmpty();
+        }
         List<SeatLock> userLocks = seatLockRepository.findActiveLocksByFlightAndUser(flightId, userId);
         return !userLocks.isEmpty();
     }
@@ -279,9 +421,130 @@ public class SeatLockServiceImpl implements SeatLockService {
      */
     @Override
     public List<String> getUserLockedSeats(String flightId, Long userId) {
+        if (seatActorSystem.isEnabled()) {
+            return seatActorSystem.send(command(SeatCommand.Type.USER_LOCKS, flightId, null, userId))
+                    .stream()
+                    .map(SeatLock::getSeatNumber)
+                    .toList();
+        }
         return seatLockRepository.findActiveLocksByFlightAndUser(flightId, userId)
                 .stream()
                 .map(SeatLock::getSeatNumber)
                 .toList();
     }
+
+    /**
+     * Ghi các lock ACTIVE. Redis key của lock cũ có thể hết hạn trước khi row của nó được đánh dấu EXPIRED,
+     * khi đó insert đụng active_seat_lock_uq: đánh dấu EXPIRED các row đã quá hạn của các ghế này rồi thử lại một lần.
+     */
+    private List<SeatLock> insertLocks(String flightId, List<String> seats, Long userId, String sessionId,
+                                       LocalDateTime now, LocalDateTime expiresAt) {
+        for (int attempt = 1; ; attempt++) {
+            List<SeatLock> seatLocks = seats.stream()
+                    .map(seatNumber -> SeatLock.builder()
+                            .flightId(flightId)
+                            .seatNumber(seatNumber)
+                            .userId(userId)
+                            .sessionId(sessionId)
+                            .lockedAt(now)
+                            .expiresAt(expiresAt)
+                            .status(LockStatus.ACTIVE)
+                            .build())
+                    .toList();
+            try {
+                return seatLockRepository.saveAll(seatLocks);
+            } catch (DuplicateKeyException e) {
+                seatLockRepository.deleteActiveLocksLockedAt(flightId, seats, userId, now);
+                List<SeatLock> stale = seatLockRepository.findExpiredLocksBySeats(flightId, seats, now);
+                if (attempt > 1 || stale.isEmpty()) {
+                    log.warn("Seats {} on flight {} still have an active lock in MongoDB: {}", seats, flightId, e.getMessage());
+                    throw new BusinessException("Seats " + seats + " are already locked");
+                }
+                expireLocks(flightId, stale, now);
+            }
+        }
+    }
+
+    private SeatCommand command(SeatCommand.Type type, String flightId, List<String> seatNumbers, Long userId) {
+        return SeatCommand.builder()
+                .type(type)
+                .flightId(flightId)
+                .seatNumbers(seatNumbers)
+                .userId(userId)
+                .build();
+    }
+
+    private void expireLocks(String flightId, List<SeatLock> expiredLocks, LocalDateTime now) {
+        if (expiredLocks.isEmpty()) {
+            return;
+        }
+
+        // Redis lock key tự hết hạn theo TTL nên chỉ cần cập nhật MongoDB (1 bulk update)
+        seatLockRepository.markExpiredByIds(expiredLocks.stream().map(SeatLock::getId).toList(), now);
+
+        List<String> seats = expiredLocks.stream().map(SeatLock::getSeatNumber).toList();
+        seatInventoryService.markExpired(flightId, seats);
+
+        log.debug("Expired seat locks {} on flight {}", seats, flightId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claimDueEntries(long now) {
+        List<String> dueEntries = redisTemplate.execute(CLAIM_DUE_ENTRIES_SCRIPT,
+                List.of(SEAT_LOCK_EXPIRY_QUEUE), now, expiryBatchSize);
+        return dueEntries != null ? dueEntries : List.of();
+    }
+
+    private void scheduleExpiry(String flightId, List<String> seatNumbers, LocalDateTime expiresAt) {
+        double score = toEpochMillis(expiresAt);
+        Set<ZSetOperations.TypedTuple<Object>> entries = new HashSet<>();
+        for (String seatNumber : seatNumbers) {
+            entries.add(ZSetOperations.TypedTuple.of(expiryEntry(flightId, seatNumber), score));
+        }
+        redisTemplate.opsForZSet().add(SEAT_LOCK_EXPIRY_QUEUE, entries);
+    }
+
+    private void cancelExpiry(String flightId, List<String> seatNumbers) {
+        if (seatNumbers.isEmpty()) {
+            return;
+        }
+        Object[] entries = seatNumbers.stream()
+                .map(seatNumber -> expiryEntry(flightId, seatNumber))
+                .toArray();
+        redisTemplate.opsForZSet().remove(SEAT_LOCK_EXPIRY_QUEUE, entries);
+    }
+
+    /**
+     * Xóa lock key và entry trong delay queue: hai lệnh được gửi cùng lúc trên kết nối multiplexed,
+     * chỉ chờ một round trip.
+     */
+    private void clearRedisLocks(List<String> lockKeys, List<String> expiryEntries) {
+        if (lockKeys.isEmpty()) {
+            return;
+        }
+        Mono.when(
+                reactiveRedisTemplate.delete(lockKeys.toArray(String[]::new)),
+                reactiveRedisTemplate.opsForZSet().remove(SEAT_LOCK_EXPIRY_QUEUE, expiryEntries.toArray())
+        ).block();
+    }
+
+    private List<String> lockKeys(List<SeatLock> locks) {
+        return locks.stream()
+                .map(lock -> SEAT_LOCK_PREFIX + lock.getFlightId() + ":" + lock.getSeatNumber())
+                .toList();
+    }
+
+    private List<String> expiryEntries(List<SeatLock> locks) {
+        return locks.stream()
+                .map(lock -> expiryEntry(lock.getFlightId(), lock.getSeatNumber()))
+                .toList();
+    }
+
+    private String expiryEntry(String flightId, String seatNumber) {
+        return flightId + ":" + seatNumber;
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
@@ -0,0 +1,152 @@
+package com.booking.booking_service.service.Impl;
+
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import com.booking.booking_service.dto.respone.SeatMapResponse;
+import com.booking.booking_service.service.FlightService;
+import com.booking.booking_service.service.SeatMapStreamService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatMapStreamServiceImpl implements SeatMapStreamService {
+
+    private final FlightService flightService;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${app.booking.seat-map-stream.timeout-ms:300000}")
+    private long timeoutMillis;
+
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String DELTA_EVENT = "delta";
+
+    /**
+     * Mở stream seat map: gửi snapshot đầy đủ (kèm version) một lần, sau đó chỉ gửi delta.
+     * Subscriber được đăng ký trước khi lấy snapshot; delta đến trong lúc đó được giữ lại rồi gửi sau snapshot
+     * (chỉ delta có version lớn hơn snapshot), nên client không mất thay đổi nào.
+     */
+    @Override
+    public SseEmitter subscribe(String flightId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        Set<Subscriber> flightSubscribers = subscribers.compute(flightId, (id, current) -> {
+            Set<Subscriber> set = current != null ? current : new CopyOnWriteArraySet<>();
+            set.add(subscriber);
+            return set;
+        });
+
+        emitter.onCompletion(() -> remove(flightId, subscriber));
+        emitter.onTimeout(() -> remove(flightId, subscriber));
+        emitter.onError(e -> remove(flightId, subscriber));
+
+        SeatMapResponse snapshot;
+        try {
+            snapshot = flightService.getFlightSeatMap(flightId);
+        } catch (RuntimeException e) {
+            remove(flightId, subscriber);
+            throw e;
+        }
+
+        try {
+            subscriber.start(snapshot);
+        } catch (IOException | IllegalStateException e) {
+            remove(flightId, subscriber);
+            emitter.completeWithError(e);
+        }
+
+        log.debug("Seat map stream opened for flight {} ({} subscribers)", flightId, flightSubscribers.size());
+        return emitter;
+    }
+
+    @Override
+    public void broadcast(SeatMapDelta delta) {
+        Set<Subscriber> flightSubscribers = subscribers.get(delta.getFlightId());
+        if (flightSubscribers == null || flightSubscribers.isEmpty()) {
+            return;
+        }
+
+        // Không lộ thông tin người giữ ghế ra client
+        SeatMapDelta publicDelta = delta.toBuilder()
+                .lockedBy(null)
+                .lockExpiresAt(null)
+                .build();
+
+        for (Subscriber subscriber : flightSubscribers) {
+            try {
+                subscriber.deliver(publicDelta);
+            } catch (IOException | IllegalStateException e) {
+                // Client đã ngắt kết nối
+                remove(delta.getFlightId(), subscriber);
+            }
+        }
+    }
+
+    @Override
+    public int getSubscriberCount(String flightId) {
+        Set<Subscriber> flightSubscribers = subscribers.get(flightId);
+        return flightSubscribers != null ? flightSubscribers.size() : 0;
+    }
+
+    private void remove(String flightId, Subscriber subscriber) {
+        subscribers.computeIfPresent(flightId, (id, flightSubscribers) -> {
+            flightSubscribers.remove(subscriber);
+            return flightSubscribers.isEmpty() ? null : flightSubscribers;
+        });
+    }
+
+    /**
+     * Một client: giữ delta trong buffer cho tới khi snapshot được gửi.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private List<SeatMapDelta> buffered = new ArrayList<>();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void start(SeatMapResponse snapshot) throws IOException {
+            long snapshotVersion = snapshot.getVersion() != null ? snapshot.getVersion() : 0L;
+            emitter.send(SseEmitter.event()
+                    .name(SNAPSHOT_EVENT)
+                    .id(String.valueOf(snapshot.getVersion()))
+                    .data(snapshot));
+            List<SeatMapDelta> pending = buffered;
+            buffered = null;
+            for (SeatMapDelta delta : pending) {
+                if (delta.getVersion() == null || delta.getVersion() > snapshotVersion) {
+                    send(delta);
+                }
+            }
+        }
+
+        synchronized void deliver(SeatMapDelta delta) throws IOException {
+            if (buffered != null) {
+                buffered.add(delta);
+                return;
+            }
+            send(delta);
+        }
+
+        private void send(SeatMapDelta delta) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .name(DELTA_EVENT)
+                    .id(String.valueOf(delta.getVersion()))
+                    .data(delta));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.booking.booking_service.service;
+
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import com.booking.booking_service.inventory.SeatInventory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SeatInventoryService {
+    SeatInventory getInventory(String flightId);
+
+    long getVersion(String flightId);
+
+    boolean isAvailable(String flightId, List<String> seatNumbers, Long viewerId);
+
+    void markLocked(String flightId, List<String> seatNumbers, Long userId, LocalDateTime expiresAt);
+
+    void markReleased(String flightId, List<String> seatNumbers);
+
+    void markExpired(String flightId, List<String> seatNumbers);
+
+    void markSold(String flightId, List<String> seatNumbers);
+
+    void applyDelta(SeatMapDelta delta);
+
+    void evict(String flightId);
+}
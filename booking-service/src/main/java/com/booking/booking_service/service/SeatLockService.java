@@ -19,10 +19,14 @@ public interface SeatLockService {
 
     void confirmSeatLocks(String flightId, List<String> seatNumbers, Long userId, String bookingId);
 
+    void releaseBookingLocks(String flightId, String bookingId, List<String> seatNumbers);
+
     List<SeatLock> getUserActiveLocks(Long userId);
 
     void extendSeatLock(String flightId, String seatNumber, Long userId, int additionalMinutes);
 
+    void processDueLockExpirations();
+
     void cleanupExpiredLocks();
 
     boolean hasUserLockedSeats(String flightId, Long userId);
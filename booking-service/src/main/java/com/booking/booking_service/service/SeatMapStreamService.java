@@ -0,0 +1,12 @@
+package com.booking.booking_service.service;
+
+import com.booking.booking_service.dto.respone.SeatMapDelta;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface SeatMapStreamService {
+    SseEmitter subscribe(String flightId);
+
+    void broadcast(SeatMapDelta delta);
+
+    int getSubscriberCount(String flightId);
+}
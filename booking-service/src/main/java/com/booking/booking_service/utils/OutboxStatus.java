@@ -0,0 +1,7 @@
+package com.booking.booking_service.utils;
+
+public enum OutboxStatus {
+    PENDING,   // Chờ relay gửi lên Kafka
+    PUBLISHED, // Đã gửi thành công
+    FAILED     // Gửi lỗi quá số lần cho phép hoặc không gửi được (dead-letter), cần xử lý tay
+}
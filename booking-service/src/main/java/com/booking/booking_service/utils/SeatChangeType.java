@@ -0,0 +1,8 @@
+package com.booking.booking_service.utils;
+
+public enum SeatChangeType {
+    LOCKED,     // Ghế vừa bị lock
+    RELEASED,   // Lock được giải phóng
+    CONFIRMED,  // Lock đã chuyển thành booking
+    EXPIRED     // Lock hết hạn
+}
@@ -0,0 +1,210 @@
+package com.booking.booking_service.waitingroom;
+
+import com.booking.booking_service.dto.respone.WaitingRoomStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Waiting room cho flight đang bị dồn request (mở bán giá khuyến mãi).
+ * <p>
+ * Khi số request selectSeats / createBooking của một flight vượt ngưỡng mỗi giây, user mới được cấp số thứ tự
+ * và xếp hàng trên Redis; mỗi nhịp admit, một instance (giữ lease theo flight) cho một lượng cố định user đầu hàng
+ * vào trong một khoảng thời gian. Nhờ đó tải lên seat lock (Redis + Mongo) của flight được giữ ở mức cố định
+ * thay vì tất cả cùng tranh chấp rồi retry. Redis lỗi thì cho qua (fail-open).
+ */
+@Slf4j
+@Component
+public class WaitingRoom {
+
+    private static final String KEY_PREFIX = "waiting_room:";
+    private static final String ACTIVE_FLIGHTS_KEY = KEY_PREFIX + "flights";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ENTER_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/waiting_room_enter.lua"), List.class);
+    private static final RedisScript<Long> ADMIT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/waiting_room_admit.lua"), Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final Counter queuedCounter;
+    private final Counter admittedCounter;
+
+    @Value("${app.booking.waiting-room.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.booking.waiting-room.threshold-per-second:50}")
+    private long thresholdPerSecond;
+
+    @Value("${app.booking.waiting-room.admit-per-second:20}")
+    private long admitPerSecond;
+
+    @Value("${app.booking.waiting-room.admit-interval-ms:1000}")
+    private long admitIntervalMs;
+
+    @Value("${app.booking.waiting-room.admission-ttl-minutes:10}")
+    private long admissionTtlMinutes;
+
+    @Value("${app.booking.waiting-room.queue-ttl-minutes:60}")
+    private long queueTtlMinutes;
+
+    public WaitingRoom(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.queuedCounter = Counter.builder("booking.waiting_room.queued")
+                .description("Users put in a flight waiting room")
+                .register(meterRegistry);
+        this.admittedCounter = Counter.builder("booking.waiting_room.admitted")
+                .description("Users admitted from a flight waiting room")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gọi trước selectSeats / createBooking: cho qua nếu user đã được vào hoặc flight không quá tải,
+     * ngược lại xếp hàng (giữ nguyên vị trí nếu đã xếp) và ném {@link WaitingRoomException}.
+     */
+    public void enter(String flightId, Long userId) {
+        WaitingRoomStatus status = join(flightId, userId);
+        if (!status.isAdmitted()) {
+            throw new WaitingRoomException(status);
+        }
+    }
+
+    public WaitingRoomStatus join(String flightId, Long userId) {
+        if (!enabled) {
+            return open(flightId);
+        }
+        List<?> result;
+        try {
+            result = redisTemplate.execute(ENTER_SCRIPT,
+                    List.of(admittedKey(flightId), queueKey(flightId), demandKey(flightId), ticketKey(flightId),
+                            ACTIVE_FLIGHTS_KEY),
+                    String.valueOf(userId), System.currentTimeMillis(), thresholdPerSecond, flightId,
+                    Duration.ofMinutes(queueTtlMinutes).toMillis());
+        } catch (Exception e) {
+            log.warn("Waiting room unavailable for flight {}, letting request through: {}", flightId, e.getMessage());
+            return open(flightId);
+        }
+        if (result == null || result.size() < 4) {
+            return open(flightId);
+        }
+
+        if (((Number) result.get(0)).longValue() == 1) {
+            return open(flightId);
+        }
+        long position = ((Number) result.get(1)).longValue();
+        long ticket = ((Number) result.get(2)).longValue();
+        if (((Number) result.get(3)).longValue() == 1) {
+            queuedCounter.increment();
+        }
+        return queued(flightId, position, ticket);
+    }
+
+    /**
+     * Trạng thái hiện tại của user, không xếp hàng thêm (dùng để poll).
+     */
+    public WaitingRoomStatus status(String flightId, Long userId) {
+        if (!enabled) {
+            return open(flightId);
+        }
+        try {
+            String member = String.valueOf(userId);
+            Double admittedUntil = redisTemplate.opsForZSet().score(admittedKey(flightId), member);
+            if (admittedUntil != null && admittedUntil > System.currentTimeMillis()) {
+                return open(flightId);
+            }
+            Long rank = redisTemplate.opsForZSet().rank(queueKey(flightId), member);
+            if (rank != null) {
+                Double ticket = redisTemplate.opsForZSet().score(queueKey(flightId), member);
+                return queued(flightId, rank + 1, ticket != null ? ticket.longValue() : 0);
+            }
+            Long queueLength = redisTemplate.opsForZSet().zCard(queueKey(flightId));
+            return queueLength != null && queueLength > 0
+                    ? WaitingRoomStatus.builder().flightId(flightId).admitted(false).queued(false).build()
+                    : open(flightId);
+        } catch (Exception e) {
+            log.warn("Waiting room unavailable for flight {}: {}", flightId, e.getMessage());
+            return open(flightId);
+        }
+    }
+
+    /**
+     * Mỗi nhịp, cho admitPerSecond * interval user đầu hàng của từng flight vào.
+     * Lease theo flight đảm bảo tốc độ admit là toàn cục, không nhân theo số instance.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.waiting-room.admit-interval-ms:1000}",
+            initialDelayString = "${app.booking.waiting-room.initial-delay-ms:30000}")
+    public void admitQueued() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<Object> flightIds = redisTemplate.opsForSet().members(ACTIVE_FLIGHTS_KEY);
+            if (flightIds == null || flightIds.isEmpty()) {
+                return;
+            }
+            long batch = Math.max(1, (admitPerSecond * admitIntervalMs + 999) / 1000);
+            for (Object flightId : flightIds) {
+                admit(String.valueOf(flightId), batch);
+            }
+        } catch (Exception e) {
+            log.error("Error admitting users from waiting rooms: {}", e.getMessage());
+        }
+    }
+
+    private void admit(String flightId, long batch) {
+        Boolean lease = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + "{" + flightId + "}:lease", "1",
+                Duration.ofMillis(Math.max(1, admitIntervalMs - 50)));
+        if (!Boolean.TRUE.equals(lease)) {
+            return; // Instance khác đã admit cho flight này trong nhịp này
+        }
+        Long admitted = redisTemplate.execute(ADMIT_SCRIPT,
+                List.of(queueKey(flightId), admittedKey(flightId), ACTIVE_FLIGHTS_KEY),
+                batch, System.currentTimeMillis(), Duration.ofMinutes(admissionTtlMinutes).toMillis(), flightId);
+        if (admitted != null && admitted > 0) {
+            admittedCounter.increment(admitted);
+            log.debug("Admitted {} users from waiting room of flight {}", admitted, flightId);
+        }
+    }
+
+    private WaitingRoomStatus open(String flightId) {
+        return WaitingRoomStatus.builder().flightId(flightId).admitted(true).queued(false).build();
+    }
+
+    private WaitingRoomStatus queued(String flightId, long position, long ticket) {
+        return WaitingRoomStatus.builder()
+                .flightId(flightId)
+                .admitted(false)
+                .queued(true)
+                .position(position)
+                .ticket(ticket)
+                .estimatedWaitSeconds((position + admitPerSecond - 1) / Math.max(1, admitPerSecond))
+                .build();
+    }
+
+    private String admittedKey(String flightId) {
+        return KEY_PREFIX + "{" + flightId + "}:admitted";
+    }
+
+    private String queueKey(String flightId) {
+        return KEY_PREFIX + "{" + flightId + "}:queue";
+    }
+
+    private String demandKey(String flightId) {
+        return KEY_PREFIX + "{" + flightId + "}:demand";
+    }
+
+    private String ticketKey(String flightId) {
+        return KEY_PREFIX + "{" + flightId + "}:ticket";
+    }
+}
@@ -0,0 +1,18 @@
+package com.booking.booking_service.waitingroom;
+
+import com.booking.booking_service.dto.respone.WaitingRoomStatus;
+import com.booking.common_library.exception.BusinessException;
+import lombok.Getter;
+
+/**
+ * User đang ở trong hàng đợi của flight, chưa được vào chọn ghế / đặt chỗ.
+ */
+@Getter
+public class WaitingRoomException extends BusinessException {
+    private final WaitingRoomStatus status;
+
+    public WaitingRoomException(WaitingRoomStatus status) {
+        super("Flight is busy, you are number " + status.getPosition() + " in the waiting room", "WAITING_ROOM_QUEUED");
+        this.status = status;
+    }
+}
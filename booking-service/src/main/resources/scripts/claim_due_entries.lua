@@ -0,0 +1,8 @@
+-- Lấy và xóa các entry đã đến hạn khỏi delay queue trong một bước,
+-- để mỗi entry chỉ được xử lý bởi đúng một instance.
+-- KEYS[1]: delay queue (ZSET, score = thời điểm đến hạn ms), ARGV[1]: now (ms), ARGV[2]: batch size
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+if #due > 0 then
+    redis.call('ZREM', KEYS[1], unpack(due))
+end
+return due
@@ -0,0 +1,12 @@
+-- Lock tất cả ghế hoặc không lock ghế nào.
+-- KEYS: seat lock keys, ARGV[1]: owner, ARGV[2]: TTL (ms)
+-- Trả về 0 nếu thành công, ngược lại là vị trí (1-based) của ghế đầu tiên đã bị lock.
+for i, key in ipairs(KEYS) do
+    if redis.call('EXISTS', key) == 1 then
+        return i
+    end
+end
+for _, key in ipairs(KEYS) do
+    redis.call('SET', key, ARGV[1], 'PX', ARGV[2])
+end
+return 0
@@ -0,0 +1,11 @@
+-- Xóa các seat lock key vẫn còn thuộc về owner.
+-- KEYS: seat lock keys, ARGV[1]: owner
+-- Trả về số key đã xóa.
+local released = 0
+for _, key in ipairs(KEYS) do
+    if redis.call('GET', key) == ARGV[1] then
+        redis.call('DEL', key)
+        released = released + 1
+    end
+end
+return released
@@ -0,0 +1,16 @@
+-- Cho một lượt user đầu hàng đợi vào (admitted) và dọn lượt vào đã hết hạn.
+-- KEYS[1]: queue, KEYS[2]: admitted, KEYS[3]: tập flight đang có hàng đợi
+-- ARGV[1]: số user cho vào, ARGV[2]: now (ms), ARGV[3]: thời gian hiệu lực lượt vào (ms), ARGV[4]: flightId
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[2])
+local popped = redis.call('ZPOPMIN', KEYS[1], ARGV[1])
+local expiresAt = tonumber(ARGV[2]) + tonumber(ARGV[3])
+for i = 1, #popped, 2 do
+    redis.call('ZADD', KEYS[2], expiresAt, popped[i])
+end
+if #popped > 0 then
+    redis.call('PEXPIRE', KEYS[2], ARGV[3])
+end
+if redis.call('ZCARD', KEYS[1]) == 0 then
+    redis.call('SREM', KEYS[3], ARGV[4])
+end
+return #popped / 2
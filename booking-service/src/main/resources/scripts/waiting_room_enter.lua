@@ -0,0 +1,30 @@
+-- Kiểm tra quyền vào của user cho một flight, xếp hàng nếu cần (waiting room).
+-- KEYS[1]: admitted (ZSET, score = hết hạn ms), KEYS[2]: queue (ZSET, score = số thứ tự),
+-- KEYS[3]: demand counter (1 giây), KEYS[4]: ticket sequence, KEYS[5]: tập flight đang có hàng đợi
+-- ARGV[1]: user, ARGV[2]: now (ms), ARGV[3]: ngưỡng request/giây, ARGV[4]: flightId, ARGV[5]: TTL hàng đợi (ms)
+-- Trả về {admitted (1/0), vị trí trong hàng (1-based), số vé, 1 nếu vừa được xếp hàng}
+local admittedUntil = redis.call('ZSCORE', KEYS[1], ARGV[1])
+if admittedUntil and tonumber(admittedUntil) > tonumber(ARGV[2]) then
+    return {1, 0, 0, 0}
+end
+
+local rank = redis.call('ZRANK', KEYS[2], ARGV[1])
+if rank then
+    return {0, rank + 1, tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1])), 0}
+end
+
+local demand = redis.call('INCR', KEYS[3])
+if demand == 1 then
+    redis.call('PEXPIRE', KEYS[3], 1000)
+end
+-- Chưa có hàng đợi và tải dưới ngưỡng: cho qua luôn
+if redis.call('ZCARD', KEYS[2]) == 0 and demand <= tonumber(ARGV[3]) then
+    return {1, 0, 0, 0}
+end
+
+local ticket = redis.call('INCR', KEYS[4])
+redis.call('ZADD', KEYS[2], ticket, ARGV[1])
+redis.call('PEXPIRE', KEYS[2], ARGV[5])
+redis.call('PEXPIRE', KEYS[4], ARGV[5])
+redis.call('SADD', KEYS[5], ARGV[4])
+return {0, redis.call('ZRANK', KEYS[2], ARGV[1]) + 1, ticket, 1}
@@ -0,0 +1,109 @@
+package com.booking.booking_service.idempotency;
+
+import com.booking.common_library.exception.BusinessException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(call -> store.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null);
+        doAnswer(call -> store.put(call.getArgument(0), call.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        when(values.get(anyString())).thenAnswer(call -> store.get(call.<String>getArgument(0)));
+        when(redisTemplate.delete(anyString())).thenAnswer(call -> store.remove(call.<String>getArgument(0)) != null);
+    }
+
+    private IdempotencyService service(long inFlightTimeoutMs) {
+        return new IdempotencyService(redisTemplate, new ObjectMapper().findAndRegisterModules(), 24, inFlightTimeoutMs, 5);
+    }
+
+    @Test
+    void sameKeyTwiceRunsActionOnceAndReplaysResponse() {
+        IdempotencyService service = service(15_000);
+        AtomicInteger runs = new AtomicInteger();
+
+        Map<String, Object> first = service.execute("create-booking", "key-1", Map.of("seat", "12A"), RESPONSE_TYPE,
+                () -> Map.of("bookingId", "BK-" + runs.incrementAndGet()));
+        Map<String, Object> second = service.execute("create-booking", "key-1", Map.of("seat", "12A"), RESPONSE_TYPE,
+                () -> Map.of("bookingId", "BK-" + runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals(first, second);
+        assertEquals("BK-1", second.get("bookingId"));
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        IdempotencyService service = service(15_000);
+        service.execute("create-booking", "key-2", Map.of("seat", "12A"), RESPONSE_TYPE, () -> Map.of("bookingId", "BK-1"));
+
+        BusinessException error = assertThrows(BusinessException.class, () -> service.execute("create-booking", "key-2",
+                Map.of("seat", "14C"), RESPONSE_TYPE, () -> Map.of("bookingId", "BK-2")));
+        assertEquals("IDEMPOTENCY_KEY_MISMATCH", error.getErrorCode());
+    }
+
+    @Test
+    void failedActionReleasesKeyForRetry() {
+        IdempotencyService service = service(15_000);
+        assertThrows(BusinessException.class, () -> service.execute("create-booking", "key-3", Map.of("seat", "12A"),
+                RESPONSE_TYPE, () -> {
+                    throw new BusinessException("Selected seats are not available");
+                }));
+
+        Map<String, Object> retried = service.execute("create-booking", "key-3", Map.of("seat", "12A"), RESPONSE_TYPE,
+                () -> Map.of("bookingId", "BK-3"));
+        assertEquals("BK-3", retried.get("bookingId"));
+    }
+
+    @Test
+    void claimIsRenewedWhileSlowActionRuns() {
+        IdempotencyService service = service(30);
+
+        service.execute("create-booking", "key-4", Map.of("seat", "12A"), RESPONSE_TYPE, () -> {
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of("bookingId", "BK-4");
+        });
+
+        verify(redisTemplate, atLeastOnce()).execute(any(RedisScript.class), anyList(), any(), any());
+        assertTrue(store.get("idempotency:create-booking:anonymous:key-4").contains("\"completed\":true"));
+    }
+}
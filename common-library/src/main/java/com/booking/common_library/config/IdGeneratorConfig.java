@@ -0,0 +1,53 @@
+package com.booking.common_library.config;
+
+import com.booking.common_library.util.NodeIdLease;
+import com.booking.common_library.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Bean {@link SnowflakeIdGenerator} dùng chung; service import bằng {@code @Import(IdGeneratorConfig.class)}.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    // Mỗi instance phải có node ID riêng (0..1023) để ID không trùng giữa các instance.
+    // Không cấu hình (-1) thì thuê node ID qua Redis; không thuê được thì startup thất bại thay vì dùng ID trùng.
+    @Value("${app.id-generator.node-id:-1}")
+    private long nodeId;
+
+    @Value("${app.id-generator.lease-ttl-seconds:300}")
+    private long leaseTtlSeconds;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(ObjectProvider<NodeIdLease> nodeIdLease) {
+        if (nodeId >= 0) {
+            return new SnowflakeIdGenerator(nodeId);
+        }
+        // Đọc node ID từ lease mỗi lần sinh: lease mất thì ngừng sinh ID / chuyển sang node ID mới
+        return new SnowflakeIdGenerator(nodeIdLease.getObject()::currentNodeId);
+    }
+
+    @Bean(destroyMethod = "close")
+    public NodeIdLease nodeIdLease(RedisConnectionFactory connectionFactory) {
+        if (nodeId >= 0) {
+            return null;
+        }
+        try {
+            return new NodeIdLease(new StringRedisTemplate(connectionFactory), applicationName,
+                    Duration.ofSeconds(leaseTtlSeconds));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot lease a Snowflake node ID from Redis; set app.id-generator.node-id "
+                    + "(ID_GENERATOR_NODE_ID) explicitly for this instance", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.booking.common_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Trang kết quả theo keyset: trang sau lấy bằng {@code nextCursor}, không skip và không count.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;          // null khi đã hết dữ liệu
+    private boolean hasNext;
+    private Long totalElements;         // Chỉ có khi client yêu cầu (includeTotal)
+    private boolean totalEstimated;     // true nếu totalElements là số ước lượng
+}
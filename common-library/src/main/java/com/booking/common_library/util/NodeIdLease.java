@@ -0,0 +1,116 @@
+package com.booking.common_library.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thuê một node ID Snowflake chưa instance nào dùng bằng SET NX trên Redis và gia hạn định kỳ.
+ * Lease hết hạn (instance chết) thì node ID được trả lại cho instance khác.
+ * <p>
+ * Node ID chỉ được dùng khi lease còn hiệu lực: gia hạn không được quá TTL thì {@link #currentNodeId()} ném lỗi
+ * (ngừng sinh ID), lease bị mất thì thuê node ID mới trước khi sinh tiếp.
+ */
+@Slf4j
+public class NodeIdLease implements AutoCloseable {
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String applicationName;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService renewer;
+
+    private volatile long nodeId;
+    // Thời điểm lease chắc chắn còn hiệu lực (tính từ lúc gửi lệnh SET / PEXPIRE), -1: không giữ lease
+    private volatile long validUntilMillis = -1;
+
+    public NodeIdLease(StringRedisTemplate redisTemplate, String applicationName, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.applicationName = applicationName;
+        this.keyPrefix = "id_generator:" + applicationName + ":node:";
+        this.ttl = ttl;
+        acquire();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMs = Math.max(1000, ttl.toMillis() / 3);
+        renewer.scheduleWithFixedDelay(this::renew, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        log.info("Leased Snowflake node ID {} for {}", nodeId, applicationName);
+    }
+
+    /**
+     * Node ID đang thuê; ném {@link IllegalStateException} khi lease hết hiệu lực để không sinh ID có thể trùng.
+     */
+    public long currentNodeId() {
+        if (System.currentTimeMillis() >= validUntilMillis) {
+            throw new IllegalStateException("Snowflake node ID lease of " + applicationName + " is not held; "
+                    + "IDs are not issued until it is renewed");
+        }
+        return nodeId;
+    }
+
+    private void acquire() {
+        // Bắt đầu dò từ một vị trí khác nhau cho mỗi lần thuê để ít va chạm
+        Long start = redisTemplate.opsForValue().increment("id_generator:" + applicationName + ":sequence");
+        long offset = start != null ? start : 0;
+        for (long i = 0; i <= SnowflakeIdGenerator.MAX_NODE_ID; i++) {
+            long candidate = (offset + i) & SnowflakeIdGenerator.MAX_NODE_ID;
+            long sentAt = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(keyPrefix + candidate, owner, ttl))) {
+                nodeId = candidate;
+                validUntilMillis = sentAt + ttl.toMillis();
+                return;
+            }
+        }
+        throw new IllegalStateException("No free Snowflake node ID left for " + applicationName);
+    }
+
+    private void renew() {
+        long leasedNodeId = nodeId;
+        try {
+            long sentAt = System.currentTimeMillis();
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(keyPrefix + leasedNodeId), owner,
+                    String.valueOf(ttl.toMillis()));
+            if (renewed != null && renewed == 1) {
+                validUntilMillis = sentAt + ttl.toMillis();
+                return;
+            }
+            // Key đã hết hạn hoặc bị instance khác lấy: ngừng dùng node ID này và thuê node ID khác
+            validUntilMillis = -1;
+            log.error("Snowflake node ID {} lease was lost, leasing a new node ID", leasedNodeId);
+            acquire();
+            log.info("Leased Snowflake node ID {} for {}", nodeId, applicationName);
+        } catch (Exception e) {
+            // Lỗi Redis: node ID vẫn dùng được tới hết TTL đã gia hạn, sau đó ngừng sinh ID cho tới khi gia hạn lại
+            log.warn("Cannot renew Snowflake node ID {} lease: {}", leasedNodeId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+        validUntilMillis = -1;
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(keyPrefix + nodeId), owner);
+        } catch (Exception e) {
+            log.warn("Cannot release Snowflake node ID {} lease: {}", nodeId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.booking.common_library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh ID 64-bit kiểu Snowflake: 41 bit timestamp (ms từ CUSTOM_EPOCH) | 10 bit node ID | 12 bit sequence.
+ * <p>
+ * Timestamp và sequence được gói chung trong một {@link AtomicLong} và cập nhật bằng CAS nên không cần lock.
+ * Khi sequence tràn trong cùng một ms, timestamp logic được đẩy lên ms kế tiếp; khi đồng hồ hệ thống lùi lại,
+ * timestamp logic giữ nguyên và chỉ tăng sequence - ID luôn tăng dần và không trùng trên cùng một node.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final long CUSTOM_EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+
+    // Crockford base32: không có I, L, O, U để dễ đọc và đọc qua điện thoại
+    private static final char[] BASE32_ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final LongSupplier nodeIdSource;
+    // (timestamp << SEQUENCE_BITS) | sequence của ID sinh gần nhất
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeIdSource = () -> nodeId;
+    }
+
+    /**
+     * Node ID lấy từ nguồn có thể đổi khi chạy (vd. {@link NodeIdLease}); nguồn ném lỗi thì không sinh ID.
+     */
+    public SnowflakeIdGenerator(LongSupplier nodeIdSource) {
+        this.nodeIdSource = nodeIdSource;
+    }
+
+    public long nextId() {
+        long nodeId = nodeIdSource.getAsLong();
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        long now = System.currentTimeMillis() - CUSTOM_EPOCH;
+        long previous;
+        long next;
+        do {
+            previous = lastState.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            // Sequence tràn sẽ cộng dồn sang phần timestamp (mượn ms kế tiếp)
+            next = now > previousTimestamp ? now << SEQUENCE_BITS : previous + 1;
+        } while (!lastState.compareAndSet(previous, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_ID_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * ID dạng chuỗi có prefix, vd "TXN" + 19 chữ số.
+     */
+    public String nextId(String prefix) {
+        return prefix + nextId();
+    }
+
+    /**
+     * ID dạng base32 ngắn (tối đa 13 ký tự), dùng cho mã người dùng nhìn thấy như booking reference.
+     */
+    public String nextBase32(String prefix) {
+        return prefix + toBase32(nextId());
+    }
+
+    public long getNodeId() {
+        return nodeIdSource.getAsLong();
+    }
+
+    public static String toBase32(long value) {
+        if (value == 0) {
+            return "0";
+        }
+        char[] buffer = new char[13];
+        int position = buffer.length;
+        long remaining = value;
+        while (remaining != 0) {
+            buffer[--position] = BASE32_ALPHABET[(int) (remaining & 31)];
+            remaining >>>= 5;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_ID_BITS + SEQUENCE_BITS)) + CUSTOM_EPOCH;
+    }
+}
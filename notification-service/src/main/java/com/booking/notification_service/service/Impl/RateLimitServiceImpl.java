@@ -27,22 +27,22 @@ public class RateLimitServiceImpl implements RateLimitService {
         String key = "rate_limit:notification:" + type + ":" + userId;
         int maxRequests = getMaxRequests(type);
 
-        String countStr = (String) redisTemplate.opsForValue().get(key);
-        int currentCount = countStr != null ? Integer.parseInt(countStr) : 0;
-
-        if (currentCount >= maxRequests) {
-            log.warn("Rate limit exceeded for user {} type {}: {}/{}", userId, type, currentCount, maxRequests);
-            return false;
+        // INCR trước rồi mới so sánh: một round trip trong trường hợp thường gặp, không race giữa GET và INCR
+        Long currentCount = redisTemplate.opsForValue().increment(key);
+        if (currentCount == null) {
+            return true;
         }
 
-        // Increment counter
-        redisTemplate.opsForValue().increment(key);
-
         // Set expiration on first request
-        if (currentCount == 0) {
+        if (currentCount == 1) {
             redisTemplate.expire(key, 1, TimeUnit.MINUTES);
         }
 
+        if (currentCount > maxRequests) {
+            log.warn("Rate limit exceeded for user {} type {}: {}/{}", userId, type, currentCount, maxRequests);
+            return false;
+        }
+
         return true;
     }
 
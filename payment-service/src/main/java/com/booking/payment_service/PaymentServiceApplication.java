@@ -1,13 +1,16 @@
 package com.booking.payment_service;
 
+import com.booking.common_library.config.IdGeneratorConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@Import(IdGeneratorConfig.class)
 @EnableJpaAuditing
 @EnableAsync
 public class PaymentServiceApplication {
@@ -2,8 +2,10 @@ package com.booking.payment_service.controller;
 
 
 import com.booking.common_library.dto.ApiResponse;
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.common_library.util.SuccessCode;
 import com.booking.payment_service.dto.respone.TransactionHistoryResponse;
+import com.booking.payment_service.security.CurrentUser;
 import com.booking.payment_service.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,10 +34,23 @@ public class TransactionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Long userId = 1L; // TODO: read from security context
+        Long userId = CurrentUser.id();
         Page<TransactionHistoryResponse> history = transactionService.getTransactionHistory(userId, pageable);
         return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, history));
     }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Get transaction history (cursor)",
+            description = "Keyset-paginated transaction history for current user; pass nextCursor to get the next page")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionHistoryResponse>>> scrollTransactionHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        Long userId = CurrentUser.id();
+        CursorPageResponse<TransactionHistoryResponse> history = transactionService.getTransactionHistory(
+                userId, cursor, Math.min(Math.max(size, 1), 100), includeTotal);
+        return ResponseEntity.ok(ApiResponse.builderResponse(SuccessCode.FETCHED, history));
+    }
 }
 
 
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Keyset pagination lịch sử giao dịch theo (created_at, id)
+        @Index(name = "idx_transactions_user_created", columnList = "user_id, deleted, created_at, id")
+})
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Transaction extends BaseEntity {
     @Id
@@ -25,6 +25,19 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     Page<Transaction> findByUserIdAndDeleted(Long userId, Boolean deleted, Pageable pageable);
 
+    long countByUserIdAndDeleted(Long userId, Boolean deleted);
+
+    // Keyset pagination: trả về List để không chạy count query
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.deleted = false ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findHistoryFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.deleted = false " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findHistoryAfter(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
     List<Transaction> findByStatusAndDeleted(TransactionStatus status, Boolean deleted);
 
     @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.nextRetryAt <= :now AND t.retryCount < :maxRetries AND t.deleted = false")
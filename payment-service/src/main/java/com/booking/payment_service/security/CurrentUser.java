@@ -0,0 +1,22 @@
+package com.booking.payment_service.security;
+
+import com.booking.common_library.exception.BusinessException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * User của request hiện tại, lấy từ claim userId của JWT đã được {@link JwtAuthenticationFilter} xác thực.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    public static Long id() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getDetails() instanceof Long userId) {
+            return userId;
+        }
+        throw new BusinessException("Unable to resolve the current user", "UNAUTHORIZED");
+    }
+}
@@ -1,5 +1,6 @@
 package com.booking.payment_service.service;
 
+import com.booking.common_library.dto.CursorPageResponse;
 import com.booking.payment_service.dto.request.PaymentRequest;
 import com.booking.payment_service.dto.respone.TransactionHistoryResponse;
 import com.booking.payment_service.entity.Transaction;
@@ -16,6 +17,8 @@ public interface TransactionService {
     void updateTransactionWithGatewayResponse(String transactionId, String paymentUrl, String gatewayResponse);
     void markTransactionFailed(String transactionId, String reason);
     Page<TransactionHistoryResponse> getTransactionHistory(Long userId, Pageable pageable);
+
+    CursorPageResponse<TransactionHistoryResponse> getTransactionHistory(Long userId, String cursor, int size, boolean includeTotal);
     List<Transaction> getRetryableTransactions();
     List<Transaction> getPriorityTransactions();
     void processRetryTransaction(Transaction transaction);
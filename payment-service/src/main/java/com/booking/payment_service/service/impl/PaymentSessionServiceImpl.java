@@ -1,6 +1,7 @@
 package com.booking.payment_service.service.impl;
 
 import com.booking.common_library.exception.ResourceNotFoundException;
+import com.booking.common_library.util.SnowflakeIdGenerator;
 import com.booking.payment_service.dto.request.PaymentRequest;
 import com.booking.payment_service.entity.PaymentSession;
 import com.booking.payment_service.repository.PaymentSessionRepository;
@@ -12,7 +13,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +21,7 @@ import java.util.UUID;
 public class PaymentSessionServiceImpl implements PaymentSessionService {
 
     private final PaymentSessionRepository sessionRepository;
+    private final SnowflakeIdGenerator idGenerator;
 
     @Override
     public PaymentSession createPaymentSession(PaymentRequest request) {
@@ -56,7 +57,7 @@ public class PaymentSessionServiceImpl implements PaymentSessionService {
     }
 
     private String generateSessionId() {
-        return "PS" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextId("PS");
     }
 
     private Long getCurrentUserId() {
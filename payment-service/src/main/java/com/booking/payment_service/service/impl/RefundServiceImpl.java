@@ -2,6 +2,7 @@ package com.booking.payment_service.service.impl;
 
 import com.booking.common_library.exception.BusinessException;
 import com.booking.common_library.exception.ResourceNotFoundException;
+import com.booking.common_library.util.SnowflakeIdGenerator;
 import com.booking.payment_service.dto.request.RefundRequest;
 import com.booking.payment_service.dto.respone.RefundResponse;
 import com.booking.payment_service.entity.Refund;
@@ -18,7 +19,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +28,7 @@ public class RefundServiceImpl implements RefundService {
 
     private final RefundRepository refundRepository;
     private final TransactionService transactionService;
+    private final SnowflakeIdGenerator idGenerator;
 
     @Override
     public RefundResponse processRefund(RefundRequest request) {
@@ -151,7 +152,7 @@ public class RefundServiceImpl implements RefundService {
     }
 
     private String generateRefundId() {
-        return "RFD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextId("RFD");
     }
 
     private RefundResponse mapToRefundResponse(Refund refund) {
@@ -1,6 +1,10 @@
 package com.booking.payment_service.service.impl;
 
+import com.booking.common_library.dto.CursorPageResponse;
+import com.booking.common_library.exception.BusinessException;
 import com.booking.common_library.exception.ResourceNotFoundException;
+import com.booking.common_library.util.PageCursor;
+import com.booking.common_library.util.SnowflakeIdGenerator;
 import com.booking.payment_service.dto.request.PaymentRequest;
 import com.booking.payment_service.dto.respone.TransactionHistoryResponse;
 import com.booking.payment_service.entity.Transaction;
@@ -10,13 +14,13 @@ import com.booking.payment_service.utils.TransactionStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final SnowflakeIdGenerator idGenerator;
 
     @Override
     public Transaction createTransaction(PaymentRequest request, String gateway) {
@@ -103,6 +108,47 @@ public class TransactionServiceImpl implements TransactionService {
         return transactions.map(this::mapToHistoryResponse);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionHistoryResponse> getTransactionHistory(Long userId, String cursor, int size,
+                                                                               boolean includeTotal) {
+        // Lấy dư 1 phần tử để biết còn trang sau
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Transaction> transactions;
+        if (cursor == null || cursor.isBlank()) {
+            transactions = transactionRepository.findHistoryFirstPage(userId, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            if (after.createdAt() == null) {
+                throw new BusinessException("Invalid page cursor", "INVALID_CURSOR");
+            }
+            Long afterId;
+            try {
+                afterId = Long.valueOf(after.id());
+            } catch (NumberFormatException e) {
+                throw new BusinessException("Invalid page cursor", "INVALID_CURSOR");
+            }
+            transactions = transactionRepository.findHistoryAfter(userId, after.createdAt(), afterId, pageable);
+        }
+
+        boolean hasNext = transactions.size() > size;
+        List<Transaction> page = hasNext ? transactions.subList(0, size) : transactions;
+        String nextCursor = null;
+        if (hasNext) {
+            Transaction last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), String.valueOf(last.getId())).encode();
+        }
+
+        return CursorPageResponse.<TransactionHistoryResponse>builder()
+                .content(page.stream().map(this::mapToHistoryResponse).toList())
+                .size(size)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .totalElements(includeTotal ? transactionRepository.countByUserIdAndDeleted(userId, false) : null)
+                .totalEstimated(false)
+                .build();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Transaction> getRetryableTransactions() {
@@ -149,7 +195,7 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextId("TXN");
     }
 
     private Long getCurrentUserId() {
@@ -3,7 +3,8 @@ package com.booking.payment_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Không có Redis để thuê node ID khi test
+@SpringBootTest(properties = "app.id-generator.node-id=0")
 class PaymentServiceApplicationTests {
 
 	@Test